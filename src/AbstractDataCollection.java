@@ -0,0 +1,177 @@
+import java.awt.Color;
+import java.util.*;
+
+/**
+ * A skeleton DataCollection that builds the read-only operations
+ * (iterating over the items and copying them into an array) on top of
+ * size and get, so implementations only need to provide those.
+ * None of these operations change which item is selected or highlighted.
+ * It also keeps the listener, which implementations tell what changed,
+ * and the scanner they look through many items with.
+ */
+public abstract class AbstractDataCollection implements DataCollection
+{
+	/**
+	 * Hears about the changes, if anyone does
+	 */
+	private CollectionListener listener;
+
+	/**
+	 * Looks through many items at once, with the default threshold
+	 * until told otherwise
+	 */
+	private ParallelScanner scanner = DEFAULT_SCANNER;
+
+	/**
+	 * The scanner every collection starts with
+	 */
+	private static final ParallelScanner DEFAULT_SCANNER = new ParallelScanner(ParallelScanner.THRESHOLD);
+
+	public void setListener(CollectionListener someListener)
+	{
+		listener = someListener;
+	}
+
+	public void setScanner(ParallelScanner someScanner)
+	{
+		scanner = someScanner == null ? DEFAULT_SCANNER : someScanner;
+	}
+
+	/**
+	 * Returns the scanner to look through many items with.
+	 */
+	protected ParallelScanner getScanner()
+	{
+		return scanner;
+	}
+
+	/**
+	 * Tells the listener that the Items from position from (included)
+	 * to position to (excluded) changed highlighting.
+	 */
+	protected void highlightChanged(int from, int to)
+	{
+		if (listener != null && from < to)
+			listener.highlightChanged(this, from, to);
+	}
+
+	/**
+	 * Tells the listener that the Items from position from (included)
+	 * to position to (excluded) came, went, moved or changed.
+	 */
+	protected void itemsChanged(int from, int to)
+	{
+		if (listener != null && from < to)
+			listener.itemsChanged(this, from, to);
+	}
+
+	/**
+	 * Adds the given items one at a time.
+	 */
+	public void addAll(Item [] someItems)
+	{
+		for (int i = 0; i < someItems.length; i++)
+			add(someItems[i]);
+	}
+
+	/**
+	 * Makes an item for each of the given values and adds them all.
+	 */
+	public void addAll(int [] someValues, Color someColor)
+	{
+		Item [] items = new Item[someValues.length];
+		for (int i = 0; i < items.length; i++)
+			items[i] = new Item(someValues[i], someColor);
+		addAll(items);
+	}
+
+	/**
+	 * Returns the value of the item at the given position.
+	 */
+	public int getValue(int index)
+	{
+		return get(index).getValue();
+	}
+
+	/**
+	 * Asks the item at the given position whether it is highlighted,
+	 * for collections that highlight the items themselves.
+	 */
+	public boolean isHighlighted(int index)
+	{
+		return get(index).isHighlighted();
+	}
+
+	/**
+	 * Looks at the value of every item for the left-most tallest one.
+	 */
+	public int indexOfMaximum()
+	{
+		int size = size(), result = size > 0 ? 0 : -1;
+		for (int i = 1; i < size; i++)
+			if (getValue(i) > getValue(result))
+				result = i;
+		return result;
+	}
+
+	/**
+	 * Looks at the value of every item for the left-most shortest one.
+	 */
+	public int indexOfMinimum()
+	{
+		int size = size(), result = size > 0 ? 0 : -1;
+		for (int i = 1; i < size; i++)
+			if (getValue(i) < getValue(result))
+				result = i;
+		return result;
+	}
+
+	/**
+	 * Returns an iterator over the items, in the order in which they
+	 * were added, that leaves the selection alone.
+	 * The iterator cannot remove items.
+	 */
+	public Iterator<Item> iterator()
+	{
+		return new Iterator<Item>() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < size();
+			}
+
+			public Item next() {
+				if (next >= size())
+					throw new NoSuchElementException();
+				return get(next++);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException("Use DataCollection.remove()");
+			}
+		};
+	}
+
+	/**
+	 * Returns a new array holding the items of the collection,
+	 * in the order in which they were added.
+	 */
+	public Item [] toArray()
+	{
+		Item [] result = new Item[size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = get(i);
+		return result;
+	}
+
+	/**
+	 * Checks that there is an item at the given position.
+	 */
+	protected void checkIndex(int index)
+	{
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("No item " + index + " in a collection of "
+												+ size());
+	}
+
+}	// end AbstractDataCollection
@@ -55,6 +55,14 @@ public class Abutton
 		up = true;
 	}
 
+	//
+	//	Changes the label of a button
+	//
+	public void setLabel(String someLabel)
+	{
+		theLabel = someLabel;
+	}
+
 	//
 	//	Flips the up/down state of a button (for 3-D effects)
 	//
@@ -73,6 +81,14 @@ public class Abutton
 				&& (someY >= y) && (someY <= y + height));
 	}
 
+	//
+	//	Gives the area a button is drawn in, frame included
+	//
+	public Rectangle getBounds()
+	{
+		return new Rectangle(x, y, width + 1, height + 1);
+	}
+
 	//
 	//	Draws a button
 	//
@@ -5,7 +5,7 @@ import java.awt.*;							//	AWT = "Abstract Window Toolkit"
  * @author nickie
  *
  */
-public class ArrayDataCollection implements DataCollection
+public class ArrayDataCollection extends AbstractDataCollection
 {
 	/**
 	 * Holds the items
@@ -18,7 +18,9 @@ public class ArrayDataCollection implements DataCollection
 	private int size;
 
 	/**
-	 * The lower left point of the first Item in the collection
+	 * The lower left point of the first Item in the collection;
+	 * the others follow Item.OVERALL_WIDTH apart, in order, and are
+	 * laid out only when painted
 	 */
 	private int x, y;	
 
@@ -28,6 +30,29 @@ public class ArrayDataCollection implements DataCollection
 	 */
 	private int selected;					
 
+	/**
+	 * Items highlighted all together, if any
+	 */
+	private Item [] highlighted;
+
+	/**
+	 * Every Item before this position knows its own position;
+	 * the ones after it are told again the next time one is looked up
+	 */
+	private int indexedUpTo;
+
+	/**
+	 * Running count, sum, extremes and counts per value of the values
+	 * of the Items, kept up to date as Items come and go
+	 */
+	private ValueCounts statistics = new ValueCounts();
+
+	/**
+	 * Positions of the left-most largest and smallest Items,
+	 * or -1 when they have to be looked for again
+	 */
+	private int maximumIndex = -1, minimumIndex = -1;
+
 	/**
 	 * Sets initial capacity of array to 15,
 	 * none are in collection, none are selected.
@@ -58,12 +83,20 @@ public class ArrayDataCollection implements DataCollection
 	 * Item. If no Item is selected, selected is set to -1.
 	 */
 	private void changeSelected(int newSelected){
+		if(highlighted != null){
+			for(int i = 0; i < highlighted.length; i++)
+				highlighted[i].highlight(false);
+			highlighted = null;
+			highlightChanged(0, size);
+		}
 		if(selected != -1){
 			theItems[selected].highlight(false);
+			highlightChanged(selected, selected + 1);
 		}
 		if(newSelected != -1 && newSelected < size){
 			theItems[newSelected].highlight(true);
 			selected =  newSelected;
+			highlightChanged(selected, selected + 1);
 		}else
 			selected = -1;
 	}
@@ -92,16 +125,47 @@ public class ArrayDataCollection implements DataCollection
 
 		//If someItem is null, we're done. Otherwise, find 
 		//someItem in the collection (if it's there).
-		if(someItem != null){
-			int i = 0;
-
-			//Stop the loop when we find someItem
-			while ( (selected == -1) && (i < size) ) {
-				if ( theItems[i] == someItem )
-					changeSelected(i);
-				i++;
+		if(someItem != null)
+			changeSelected(indexOf(someItem));
+	}
+
+	/**
+	 * Returns the position of the given Item in the collection, or -1
+	 * if it is not there. Items remember their position, so this takes
+	 * constant time unless the collection was reordered since the last
+	 * lookup, when the Items after the first change are told again.
+	 */
+	private int indexOf(Item someItem)
+	{
+		int i = someItem.getPosition();
+		if (i >= 0 && i < size && theItems[i] == someItem)
+			return i;
+		for (; indexedUpTo < size; indexedUpTo++)	// Catch up with the changes
+			theItems[indexedUpTo].setPosition(indexedUpTo);
+		i = someItem.getPosition();
+		if (i >= 0 && i < size && theItems[i] == someItem)
+			return i;
+		for (i = 0; i < size; i++)			// Put in another collection since:
+			if (theItems[i] == someItem) {	//		look for it the slow way
+				someItem.setPosition(i);
+				return i;
 			}
-		}	
+		return -1;
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be Items of the
+	 * collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public void highlight(Item [] someItems)
+	{
+		changeSelected(-1);
+		highlighted = new Item[someItems.length];
+		System.arraycopy(someItems, 0, highlighted, 0, someItems.length);
+		for (int i = 0; i < highlighted.length; i++)
+			highlighted[i].highlight(true);
+		highlightChanged(0, size);
 	}
 
 	/**
@@ -110,27 +174,82 @@ public class ArrayDataCollection implements DataCollection
 	 */
 	public void add(Item someItem)
 	{
-		if(size==theItems.length){
-			Item[] temp = new Item[theItems.length * 2];
-			for(int i = 0; i< theItems.length; i++)
-				temp[i] = theItems[i];
-			theItems = temp;
-		}
-		//set the location of the item to follow the previous
-		someItem.setLocation(x + size * Item.OVERALL_WIDTH, y);
+		ensureCapacity(size + 1);
+		someItem.setPosition(size);
+		if (indexedUpTo == size)
+			indexedUpTo++;
 		theItems[size] = someItem;		//		Set the new element as		
+		counted(size);
+		itemsChanged(size, size + 1);
 		changeSelected(size++);				//	selected
 	}
 
 	/**
-	 * Paints all items in the collection
-	 * Items are painted from left to right
-	 * in the order in which they were added.
+	 * Adds the given Items to the end of the collection with one copy,
+	 * growing the array at most once.
+	 * The last of them becomes the Item currently selected.
+	 */
+	public void addAll(Item [] someItems)
+	{
+		if (someItems.length == 0)
+			return;
+		ensureCapacity(size + someItems.length);
+		System.arraycopy(someItems, 0, theItems, size, someItems.length);
+		for (int i = size; i < size + someItems.length; i++) {
+			theItems[i].setPosition(i);
+			counted(i);
+		}
+		if (indexedUpTo == size)
+			indexedUpTo += someItems.length;
+		size += someItems.length;
+		itemsChanged(size - someItems.length, size);
+		changeSelected(size - 1);
+	}
+
+	/**
+	 * Counts the value of the Item just put at the given position,
+	 * which comes after all the others, in the running statistics.
+	 */
+	private void counted(int index)
+	{
+		int value = theItems[index].getValue();
+		boolean first = statistics.size() == 0;
+		if (first || (statistics.isMaximumKnown() && value > statistics.getMaximum()))
+			maximumIndex = index;		//	Ties keep the one further left
+		if (first || (statistics.isMinimumKnown() && value < statistics.getMinimum()))
+			minimumIndex = index;
+		statistics.add(value);
+	}
+
+	/**
+	 * Makes room for at least the given number of Items, at least
+	 * doubling the array when it has to grow.
+	 */
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity > theItems.length) {
+			Item [] temp = new Item[Math.max(capacity, theItems.length * 2)];
+			System.arraycopy(theItems, 0, temp, 0, size);
+			theItems = temp;
+		}
+	}
+
+	/**
+	 * Paints the items in the collection from left to right
+	 * in the order in which they were added, each at the place its
+	 * position gives it. Only the Items inside the clip are painted.
 	 */
 	public void paint(Graphics pane)
 	{
-		for(int i = 0; i<size; i++)
-			theItems[i].paint(pane);
+		int first = 0, last = size;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+									   / Item.OVERALL_WIDTH + 2);
+		}
+		for (int i = first; i < last; i++)
+			theItems[i].paint(pane, x + i * Item.OVERALL_WIDTH, y);
 	}
 
 	/**
@@ -164,6 +283,153 @@ public class ArrayDataCollection implements DataCollection
 		return result;
 	}
 
+	/**
+	 * Returns the number of Items in the collection.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the Item at the given position without selecting it.
+	 */
+	public Item get(int index)
+	{
+		checkIndex(index);
+		return theItems[index];
+	}
+
+	/**
+	 * Returns the value of the Item at the given position.
+	 */
+	public int getValue(int index)
+	{
+		checkIndex(index);
+		return theItems[index].getValue();
+	}
+
+	/**
+	 * Returns the sum of the values of the Items, kept as they come and go.
+	 */
+	public long getSum()
+	{
+		return statistics.getSum();
+	}
+
+	/**
+	 * Returns the position of the left-most tallest Item, or -1 if
+	 * the collection is empty. The position is kept as Items come and
+	 * go, so it is only looked for when the tallest Item was removed
+	 * or the Items were reordered.
+	 */
+	public int indexOfMaximum()
+	{
+		if (size > 0 && maximumIndex == -1) {
+			if (! statistics.isMaximumKnown())
+				rescan();
+			else
+				maximumIndex = firstIndexOf(statistics.getMaximum(), 0);
+		}
+		return maximumIndex;
+	}
+
+	/**
+	 * Returns the position of the left-most shortest Item, or -1 if
+	 * the collection is empty, the same way.
+	 */
+	public int indexOfMinimum()
+	{
+		if (size > 0 && minimumIndex == -1) {
+			if (! statistics.isMinimumKnown())
+				rescan();
+			else
+				minimumIndex = firstIndexOf(statistics.getMinimum(), 0);
+		}
+		return minimumIndex;
+	}
+
+	/**
+	 * Returns the first position from the given one on that holds an
+	 * Item of the given value, or -1 if none does.
+	 */
+	private int firstIndexOf(int value, int from)
+	{
+		for (int i = from; i < size; i++)
+			if (theItems[i].getValue() == value)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Finds the extremes again by looking at every Item, in parallel
+	 * chunks when there are many, for when the values are too spread
+	 * out for the statistics to keep them.
+	 */
+	private void rescan()
+	{
+		int [] extremes = getScanner().indexesOfExtremes(this);
+		minimumIndex = extremes[0];
+		maximumIndex = extremes[1];
+		statistics.setExtremes(theItems[minimumIndex].getValue(),
+							   theItems[maximumIndex].getValue());
+	}
+
+	/**
+	 * Returns a new array holding the Items of the collection
+	 * in the order in which they were added.
+	 * The selected Item does not change.
+	 */
+	public Item [] toArray()
+	{
+		Item [] result = new Item[size];
+		System.arraycopy(theItems, 0, result, 0, size);
+		return result;
+	}
+
+	/**
+	 * Puts the Items in the order of the given array, which must hold
+	 * exactly the Items of the collection. No Item is selected any more.
+	 */
+	public void setOrder(Item [] someItems)
+	{
+		if (someItems.length != size)
+			throw new IllegalArgumentException("Expected " + size + " Items, not "
+											   + someItems.length);
+		changeSelected(-1);
+		System.arraycopy(someItems, 0, theItems, 0, size);
+		indexedUpTo = 0;
+		maximumIndex = minimumIndex = -1;
+		itemsChanged(0, size);
+	}
+
+	/**
+	 * Sorts the Items from smallest to largest by reordering the
+	 * array in place with the given strategy.
+	 * No Item is selected any more.
+	 */
+	public void sortInPlace(SortStrategy strategy)
+	{
+		changeSelected(-1);
+		strategy.sort(theItems, 0, size);
+		indexedUpTo = 0;
+		if (size > 0) {						//	The extremes are at the ends now
+			int maximum = theItems[size - 1].getValue();
+			statistics.setExtremes(theItems[0].getValue(), maximum);
+			minimumIndex = 0;
+			int low = 0, high = size - 1;	//	Find the first of the largest
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (theItems[middle].getValue() < maximum)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			maximumIndex = low;
+		}
+		itemsChanged(0, size);
+	}
+
 	/**
 	 * Removes the selected item (if any).
 	 * No item is selected any more.
@@ -171,21 +437,52 @@ public class ArrayDataCollection implements DataCollection
 	public void remove()
 	{
 		if (selected > -1) {
-			for (int i = selected ; i < size-1; i++){
-				//move it down in the collection
-				theItems[i] = theItems[i+1];
-				//and move its location one to the left
-				theItems[i].setX(theItems[i].getX()-Item.OVERALL_WIDTH);
-			}
-			size--;
+			int removed = selected, value = theItems[selected].getValue();
+			//move the later Items down one place in the collection;
+			//they move to the left when they are next painted
+			System.arraycopy(theItems, selected + 1, theItems, selected,
+							 size - selected - 1);
+			theItems[--size] = null;		//	Let go of the last reference
+			indexedUpTo = Math.min(indexedUpTo, selected);
+
+			statistics.remove(value);
+			maximumIndex = shifted(maximumIndex, removed, value,
+								   statistics.isMaximumKnown() ? statistics.getMaximum() : value + 1);
+			minimumIndex = shifted(minimumIndex, removed, value,
+								   statistics.isMinimumKnown() ? statistics.getMinimum() : value - 1);
+			//An extreme no longer known cannot be compared to the
+			//Items added later, so it is looked for again
+			if (! statistics.isMaximumKnown())
+				maximumIndex = -1;
+			if (! statistics.isMinimumKnown())
+				minimumIndex = -1;
 			
 			//We don't need to unhighlight the removed Item
 			//or highlight any new Item, so just set selected
 			//directly.
 			selected = -1;
+			itemsChanged(removed, size + 1);	//	The rest moved left
 		}
 	}
 
+	/**
+	 * Returns where the left-most Item of an extreme is after the Item
+	 * of the given value was removed from the given position, or -1 if
+	 * it has to be looked for again.
+	 * @param index where the left-most Item of the extreme was, or -1
+	 * @param extreme the extreme value now
+	 */
+	private int shifted(int index, int removed, int value, int extreme)
+	{
+		if (index < removed)				//	Also when it was not known
+			return index;
+		if (index > removed)
+			return index - 1;
+		if (value == extreme)				//	The others of its value are to its right
+			return firstIndexOf(value, removed);
+		return -1;
+	}
+
 
 
 
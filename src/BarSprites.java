@@ -0,0 +1,161 @@
+import java.awt.*;							//	AWT = "Abstract Window Toolkit"
+import java.awt.image.BufferedImage;
+import java.util.*;
+
+/**
+ * Keeps pictures of bars already painted, so that painting an Item
+ * again is one copy of a picture and its bottom line instead of a line,
+ * a rectangle and a 3D rectangle. A bar only depends on its value, its
+ * color and whether it is highlighted, and Items take few values and
+ * fewer colors, so a few pictures serve a whole collection.
+ * The pictures are opaque, which copies fastest: the few pixels of
+ * background inside a bar are painted in the background color, and all
+ * pictures are dropped when that changes.
+ * At most a given number of pictures are kept; when one more is needed,
+ * the one used least recently is dropped. The pictures are made
+ * compatible with the screen painted on, so Java 2D can keep them
+ * there. Hits (pictures found) and misses (pictures made) are counted,
+ * to check that keeping them pays off.
+ */
+public class BarSprites
+{
+	/**
+	 * Default number of pictures kept
+	 */
+	public static final int CAPACITY = 256;
+
+	/**
+	 * Tallest value kept as a picture; taller bars are painted directly
+	 */
+	public static final int MAXIMUM_VALUE = 100;
+
+	/**
+	 * The pictures, from the least to the most recently used
+	 */
+	private LinkedHashMap<Long, Image> sprites;
+
+	/**
+	 * The color behind the bars
+	 */
+	private Color background = Color.white;
+
+	/**
+	 * The number of pictures found and made since the last reset
+	 */
+	private long hits, misses;
+
+	/**
+	 * @param someCapacity the largest number of pictures to keep
+	 */
+	public BarSprites(int someCapacity)
+	{
+		final int capacity = Math.max(someCapacity, 1);
+		sprites = new LinkedHashMap<Long, Image>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<Long, Image> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Sets the color behind the bars, dropping every picture if it
+	 * changes.
+	 */
+	public synchronized void setBackground(Color someBackground)
+	{
+		if (someBackground != null && ! someBackground.equals(background)) {
+			background = someBackground;
+			sprites.clear();
+		}
+	}
+
+	/**
+	 * Paints a bar with the given value, color and highlight with its
+	 * lower left corner at the given point, from its picture, unless
+	 * it cannot be kept as one (empty, too tall, or not opaque).
+	 * @return whether the bar was painted
+	 */
+	public synchronized boolean paint(Graphics pane, int value, Color color, boolean hilite, int x, int y)
+	{
+		if (value < 1 || value > MAXIMUM_VALUE || color == null || color.getAlpha() != 255)
+			return false;
+		Long key = Long.valueOf((long) value << 32 | (hilite ? 1 << 24 : 0) | color.getRGB() & 0xFFFFFF);
+		Image sprite = sprites.get(key);
+		if (sprite == null) {
+			sprite = render(pane, value, color, hilite);
+			sprites.put(key, sprite);
+			misses++;
+		}
+		else
+			hits++;
+		pane.drawImage(sprite, x, y - Item.HEIGHT * value, null);
+		pane.setColor(Color.black);			//	Drawing the "bottom line"
+		pane.drawLine(x - Item.DELTA, y, x + Item.WIDTH + Item.DELTA, y);
+		return true;
+	}
+
+	/**
+	 * Makes the picture of a bar, from its top to just above the bottom
+	 * line.
+	 */
+	private Image render(Graphics pane, int value, Color color, boolean hilite)
+	{
+		int width = Item.WIDTH + 1, height = Item.HEIGHT * value;
+		BufferedImage result;
+		if (pane instanceof Graphics2D)
+			result = ((Graphics2D) pane).getDeviceConfiguration()
+						.createCompatibleImage(width, height, Transparency.OPAQUE);
+		else
+			result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics picture = result.getGraphics();
+		picture.setColor(background);
+		picture.fillRect(0, 0, width, height);
+		Item.draw(picture, 0, height, value, color, hilite);
+		picture.dispose();
+		return result;
+	}
+
+	/**
+	 * Returns the number of pictures found since the last reset.
+	 */
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * Returns the number of pictures made since the last reset.
+	 */
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Returns the number of pictures kept.
+	 */
+	public synchronized int size()
+	{
+		return sprites.size();
+	}
+
+	/**
+	 * Drops every picture and sets the counts back to zero.
+	 */
+	public synchronized void reset()
+	{
+		sprites.clear();
+		hits = misses = 0;
+	}
+
+	/**
+	 * Describes the pictures kept and how often they were found.
+	 */
+	public synchronized String toString()
+	{
+		long total = hits + misses;
+		return "Sprites: " + sprites.size() + " kept, " + hits + " hits, " + misses + " misses"
+			+ (total == 0 ? "" : " (" + Math.round(100.0 * hits / total) + "% hits)");
+	}
+
+}	// end BarSprites
@@ -29,12 +29,49 @@ public class BasicStatistics extends Applet
 	}
 
 	//
-	//	The paint method simply passes the buck to the demo itself.
+	//	The back buffer everything is painted into before it is shown,
+	//		so nothing is ever seen half painted.
+	//
+	private Image buffer;
+
+	//
+	//	The update method would clear the area first, which flickers;
+	//		paint covers the whole area itself.
+	//
+	public void update(Graphics page)
+	{
+		paint(page);
+	}
+
+	//
+	//	The paint method passes the buck to the demo itself, painting
+	//		only the area asked for (the clip) into the back buffer, then
+	//		copying that area onto the screen.
 	//
 	public void paint(Graphics page)
 	{
-		if ( dataOrganizer != null )
+		if ( dataOrganizer == null )
+			return;
+		int width = getWidth(), height = getHeight();
+		if (buffer == null || buffer.getWidth(null) != width
+			|| buffer.getHeight(null) != height)
+			buffer = width > 0 && height > 0 ? createImage(width, height) : null;
+		if (buffer == null) {				//	Not showing yet
 			dataOrganizer.paint(page);
+			return;
+		}
+
+		Rectangle area = page.getClipBounds();
+		if (area == null)
+			area = new Rectangle(0, 0, width, height);
+		Graphics back = buffer.getGraphics();
+		back.setClip(area);
+		back.setFont(getFont());
+		back.setColor(getBackground());
+		back.fillRect(area.x, area.y, area.width, area.height);
+		dataOrganizer.paint(back);
+		back.dispose();
+		page.drawImage(buffer, 0, 0, this);
 	}
 
 }  // end BasicStatistics
\ No newline at end of file
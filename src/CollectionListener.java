@@ -0,0 +1,22 @@
+/**
+ * Hears about the changes to a DataCollection, by the positions of the
+ * Items they touch, so that only those need to be painted again.
+ * It is told once a change is made, so it sees the collection as the
+ * change left it.
+ */
+public interface CollectionListener
+{
+	/**
+	 * The Items from position from (included) to position to (excluded)
+	 * were selected, highlighted, or stopped being.
+	 */
+	public void highlightChanged(DataCollection collection, int from, int to);
+
+	/**
+	 * The Items from position from (included) to position to (excluded)
+	 * came, went, moved or changed; to may lie past the end of the
+	 * collection when Items went.
+	 */
+	public void itemsChanged(DataCollection collection, int from, int to);
+
+}	// end CollectionListener
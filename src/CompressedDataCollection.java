@@ -0,0 +1,495 @@
+import java.awt.*;
+import java.util.*;
+
+/**
+ * A DataCollection for Items whose values come from a small range, as
+ * they do in a DataOrganizer, kept in a few bits per Item.
+ * Every distinct pair of a value and a color gets a code, in the order
+ * in which they first turn up, and the Items are kept as a sequence of
+ * codes packed into longs, each code as wide as the number of codes
+ * needs (1, 2, 4, 8, 16 or 32 bits): 16 values of one color take 4 bits
+ * per Item. The collection also counts how many Items have each code,
+ * so sorting is only writing out runs of codes from the counts, whole
+ * longs at a time, without ever comparing two Items.
+ * The Items handed out are ItemViews, made when asked for.
+ */
+public class CompressedDataCollection extends AbstractDataCollection
+{
+	/**
+	 * The codes of the Items, packed into longs from the lowest bits up
+	 */
+	private long [] words = new long[1];
+
+	/**
+	 * Width of a code in bits, and log2 of the number of codes per long
+	 */
+	private int width = 1, shift = 6;
+
+	/**
+	 * The number of Items currently in the collection
+	 */
+	private int size;
+
+	/**
+	 * The value and the color of every code, and how many Items have it
+	 */
+	private int [] codeValues = new int[2], counts = new int[2];
+	private Color [] codeColors = new Color[2];
+	private int codes;
+
+	/**
+	 * The code of every value and color (as a long: value, then ARGB)
+	 */
+	private Map<Long, Integer> codeOf = new HashMap<Long, Integer>();
+
+	/**
+	 * The lower left point of the first Item in the collection
+	 */
+	private int x, y;
+
+	/**
+	 * The index where the selected Item is, or -1 if none is selected
+	 */
+	private int selected = -1;
+
+	/**
+	 * The indices of the Items highlighted all together, if any
+	 */
+	private BitSet highlighted;
+
+	/**
+	 * Instantiates an empty collection, with nothing selected.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public CompressedDataCollection(int someX, int someY)
+	{
+		x = someX;
+		y = someY;
+	}
+
+	//
+	//	Codes
+	//
+
+	/**
+	 * Returns the code of the Item at the given position.
+	 */
+	private int code(int index)
+	{
+		int offset = (index & ((1 << shift) - 1)) * width;
+		return (int) ((words[index >>> shift] >>> offset) & mask());
+	}
+
+	/**
+	 * Sets the code of the Item at the given position.
+	 */
+	private void setCode(int index, int code)
+	{
+		int word = index >>> shift, offset = (index & ((1 << shift) - 1)) * width;
+		words[word] = (words[word] & ~(mask() << offset)) | ((long) code << offset);
+	}
+
+	/**
+	 * Returns a long with the lowest width bits set.
+	 */
+	private long mask()
+	{
+		return width == 64 ? -1L : (1L << width) - 1;
+	}
+
+	/**
+	 * Returns the number of longs holding the codes of the Items.
+	 */
+	private int wordsUsed()
+	{
+		return (int) (((long) size + (1 << shift) - 1) >>> shift);
+	}
+
+	/**
+	 * Returns the code of the given value and color, making a new one
+	 * (and widening the codes, if they need more bits) the first time.
+	 */
+	private int codeFor(int value, Color color)
+	{
+		long argb = color == null ? 0 : color.getRGB() & 0xffffffffL;
+		Long key = Long.valueOf(((long) value << 32) | argb);
+		Integer code = codeOf.get(key);
+		if (code != null)
+			return code.intValue();
+
+		if (codes == codeValues.length) {
+			codeValues = grow(codeValues);
+			counts = grow(counts);
+			Color [] temp = new Color[codes * 2];
+			System.arraycopy(codeColors, 0, temp, 0, codes);
+			codeColors = temp;
+		}
+		codeValues[codes] = value;
+		codeColors[codes] = color;
+		codeOf.put(key, Integer.valueOf(codes));
+		if (width < 32 && codes == 1 << width)		//	Not enough bits any more
+			widen(2 * width);
+		return codes++;
+	}
+
+	/**
+	 * Returns a copy of the given array twice as long.
+	 */
+	private static int [] grow(int [] someArray)
+	{
+		int [] result = new int[someArray.length * 2];
+		System.arraycopy(someArray, 0, result, 0, someArray.length);
+		return result;
+	}
+
+	/**
+	 * Packs the codes again, the given number of bits each.
+	 */
+	private void widen(int newWidth)
+	{
+		long [] oldWords = words;
+		int oldWidth = width, oldShift = shift;
+		long oldMask = mask();
+		width = newWidth;
+		shift = 6 - Integer.numberOfTrailingZeros(newWidth);
+		words = new long[Math.max(1, wordsUsed())];
+		for (int i = 0; i < size; i++) {
+			int offset = (i & ((1 << oldShift) - 1)) * oldWidth;
+			setCode(i, (int) ((oldWords[i >>> oldShift] >>> offset) & oldMask));
+		}
+	}
+
+	/**
+	 * Makes room for at least the given number of Items.
+	 */
+	private void ensureCapacity(int capacity)
+	{
+		int needed = (int) (((long) capacity + (1 << shift) - 1) >>> shift);
+		if (needed > words.length) {
+			long [] temp = new long[Math.max(needed, words.length * 2)];
+			System.arraycopy(words, 0, temp, 0, words.length);
+			words = temp;
+		}
+	}
+
+	/**
+	 * Writes count copies of the given code from the given position on,
+	 * whole longs at a time where it can.
+	 */
+	private void fill(int from, int count, int code)
+	{
+		int to = from + count, perWord = 1 << shift;
+		long pattern = code;					//	The code in every place of a long
+		for (int bits = width; bits < 64; bits *= 2)
+			pattern |= pattern << bits;
+		while (from < to && (from & (perWord - 1)) != 0)
+			setCode(from++, code);
+		for (; to - from >= perWord; from += perWord)
+			words[from >>> shift] = pattern;
+		while (from < to)
+			setCode(from++, code);
+	}
+
+	//
+	//	The DataCollection
+	//
+
+	/**
+	 * Selects the Item at the given index, or nothing if the index is -1
+	 * or past the end, clearing any other highlighting.
+	 */
+	private void changeSelected(int newSelected)
+	{
+		if (highlighted != null) {
+			highlighted = null;
+			highlightChanged(0, size);
+		}
+		if (selected != -1) {				//	Told once it is no longer selected
+			int old = selected;
+			selected = -1;
+			highlightChanged(old, old + 1);
+		}
+		if (newSelected != -1 && newSelected < size) {
+			selected = newSelected;
+			highlightChanged(selected, selected + 1);
+		}
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public Item get(int index)
+	{
+		checkIndex(index);
+		int code = code(index);
+		return new ItemView(this, index, codeValues[code], codeColors[code]);
+	}
+
+	public int getValue(int index)
+	{
+		checkIndex(index);
+		return codeValues[code(index)];
+	}
+
+	/**
+	 * Finds the tallest value from the counts, then the first Item of it.
+	 */
+	public int indexOfMaximum()
+	{
+		int best = -1;
+		for (int code = 0; code < codes; code++)
+			if (counts[code] > 0 && (best == -1 || codeValues[code] > codeValues[best]))
+				best = code;
+		return best == -1 ? -1 : indexOfValue(codeValues[best]);
+	}
+
+	/**
+	 * Finds the shortest value from the counts, then the first Item of it.
+	 */
+	public int indexOfMinimum()
+	{
+		int best = -1;
+		for (int code = 0; code < codes; code++)
+			if (counts[code] > 0 && (best == -1 || codeValues[code] < codeValues[best]))
+				best = code;
+		return best == -1 ? -1 : indexOfValue(codeValues[best]);
+	}
+
+	/**
+	 * Returns the first position holding an Item of the given value.
+	 */
+	private int indexOfValue(int value)
+	{
+		for (int i = 0; i < size; i++)
+			if (codeValues[code(i)] == value)
+				return i;
+		return -1;
+	}
+
+	public void reset()
+	{
+		changeSelected(0);
+	}
+
+	/**
+	 * Defines the selected Item to be the given Item, if it is a view
+	 * that came from this collection.
+	 */
+	public void reset(Item someItem)
+	{
+		changeSelected(-1);
+		if (someItem instanceof ItemView && ((ItemView) someItem).belongsTo(this))
+			changeSelected(((ItemView) someItem).getIndex());
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be views that came
+	 * from this collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public void highlight(Item [] someItems)
+	{
+		changeSelected(-1);
+		highlighted = new BitSet();
+		for (int i = 0; i < someItems.length; i++)
+			if (someItems[i] instanceof ItemView && ((ItemView) someItems[i]).belongsTo(this)) {
+				int index = ((ItemView) someItems[i]).getIndex();
+				if (index < size)
+					highlighted.set(index);
+			}
+		highlightChanged(0, size);
+	}
+
+	/**
+	 * Adds the code of the value and color of the given Item.
+	 * That Item becomes the Item currently selected.
+	 */
+	public void add(Item someItem)
+	{
+		int code = codeFor(someItem.getValue(), someItem.getColor());
+		ensureCapacity(size + 1);
+		setCode(size, code);
+		counts[code]++;
+		itemsChanged(size, size + 1);
+		changeSelected(size++);
+	}
+
+	/**
+	 * Adds the codes of the given values, all of the given color,
+	 * without making any Items.
+	 * The last of them becomes the Item currently selected.
+	 */
+	public void addAll(int [] someValues, Color someColor)
+	{
+		if (someValues.length == 0)
+			return;
+		for (int i = 0; i < someValues.length; i++) {
+			int code = codeFor(someValues[i], someColor);
+			ensureCapacity(size + 1);
+			setCode(size++, code);
+			counts[code]++;
+		}
+		itemsChanged(size - someValues.length, size);
+		changeSelected(size - 1);
+	}
+
+	/**
+	 * Paints the Items that fall inside the area being painted,
+	 * from left to right.
+	 */
+	public void paint(Graphics pane)
+	{
+		int first = 0, last = size;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+									   / Item.OVERALL_WIDTH + 2);
+		}
+		Item bar = new Item();
+		for (int i = first; i < last; i++) {
+			int code = code(i);
+			bar.setup(0, 0, codeValues[code], codeColors[code]);
+			bar.highlight(i == selected || (highlighted != null && highlighted.get(i)));
+			bar.paint(pane, x + i * Item.OVERALL_WIDTH, y);
+		}
+	}
+
+	public boolean hasNext()
+	{
+		return selected > -1;
+	}
+
+	/**
+	 * Looks the position up in the selection and the highlighted set,
+	 * since there are no Items to ask.
+	 */
+	public boolean isHighlighted(int index)
+	{
+		checkIndex(index);
+		return index == selected || (highlighted != null && highlighted.get(index));
+	}
+
+	/**
+	 * Returns a view of the selected Item (if any Item is selected)
+	 * and selects the next one, if there is one.
+	 */
+	public Item next()
+	{
+		Item result = null;
+		if (selected > -1) {
+			result = get(selected);
+			changeSelected(selected + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the selected Item (if any), moving the codes after it
+	 * down one place a long at a time.
+	 * No Item is selected any more.
+	 */
+	public void remove()
+	{
+		if (selected > -1) {
+			int index = selected, word = index >>> shift,
+				offset = (index & ((1 << shift) - 1)) * width,
+				last = wordsUsed() - 1;
+			changeSelected(-1);
+			counts[code(index)]--;
+
+			long below = words[word] & ((1L << offset) - 1);	//	Codes before it stay,
+			long above = offset + width == 64 ? 0				//		the ones after it
+						 : (words[word] >>> (offset + width)) << offset;	//	move down
+			words[word] = below | above;
+			for (int i = word; i < last; i++) {	//	Each long takes the first code of the next
+				words[i] |= words[i + 1] << (64 - width);
+				words[i + 1] >>>= width;
+			}
+			size--;
+			itemsChanged(index, size + 1);	//	The rest moved left
+		}
+	}
+
+	/**
+	 * Writes the codes of the values and colors of the given Items over
+	 * those of the collection, in order. No Item is selected any more.
+	 */
+	public void setOrder(Item [] someItems)
+	{
+		if (someItems.length != size)
+			throw new IllegalArgumentException("Expected " + size + " Items, not "
+											   + someItems.length);
+		changeSelected(-1);
+		int [] newCodes = new int[size];	//	Making codes may widen them
+		for (int i = 0; i < size; i++)
+			newCodes[i] = codeFor(someItems[i].getValue(), someItems[i].getColor());
+		Arrays.fill(counts, 0);
+		for (int i = 0; i < size; i++) {
+			setCode(i, newCodes[i]);
+			counts[newCodes[i]]++;
+		}
+		itemsChanged(0, size);
+	}
+
+	/**
+	 * Sorts the Items from smallest to largest, stably, whatever the
+	 * strategy. When every value has a single color, the counts say
+	 * everything: the sorted codes are written out as runs, in the order
+	 * of their values. Otherwise the codes are dealt out by value into a
+	 * second packed array, keeping the colors of each value in order.
+	 * No Item is selected any more.
+	 */
+	public void sortInPlace(SortStrategy strategy)
+	{
+		changeSelected(-1);
+		Integer [] order = new Integer[codes];
+		for (int code = 0; code < codes; code++)
+			order[code] = Integer.valueOf(code);
+		Arrays.sort(order, new Comparator<Integer>() {	//	Only the codes, never the Items
+			public int compare(Integer first, Integer second) {
+				int a = codeValues[first.intValue()], b = codeValues[second.intValue()];
+				return a < b ? -1 : (a == b ? 0 : 1);
+			}
+		});
+
+		int [] rank = new int[codes];		//	Which value, counting from the smallest
+		int values = 0;
+		for (int k = 0; k < codes; k++) {
+			if (k > 0 && codeValues[order[k].intValue()] != codeValues[order[k - 1].intValue()])
+				values++;
+			rank[order[k].intValue()] = values;
+		}
+		values = codes > 0 ? values + 1 : 0;
+
+		if (values == codes) {				//	One color each: write out the runs
+			int at = 0;
+			for (int k = 0; k < codes; k++) {
+				int code = order[k].intValue();
+				fill(at, counts[code], code);
+				at += counts[code];
+			}
+			itemsChanged(0, size);
+			return;
+		}
+
+		int [] starts = new int[values + 1];	//	Where the Items of each value go
+		for (int code = 0; code < codes; code++)
+			starts[rank[code] + 1] += counts[code];
+		for (int r = 1; r <= values; r++)
+			starts[r] += starts[r - 1];
+		long [] oldWords = words;
+		long oldMask = mask();
+		words = new long[oldWords.length];
+		for (int i = 0; i < size; i++) {	//	Deal the codes out in order
+			int offset = (i & ((1 << shift) - 1)) * width;
+			int code = (int) ((oldWords[i >>> shift] >>> offset) & oldMask);
+			setCode(starts[rank[code]]++, code);
+		}
+		itemsChanged(0, size);
+	}
+
+}	// end CompressedDataCollection
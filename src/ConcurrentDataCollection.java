@@ -0,0 +1,358 @@
+import java.awt.*;							//	AWT = "Abstract Window Toolkit"
+import java.util.*;
+
+/**
+ * A DataCollection that many threads can use at once.
+ * Its whole state (the Items, how many there are, and what is selected
+ * or highlighted) is an immutable snapshot in a volatile field. Reading,
+ * iterating and painting take the current snapshot and never lock, so
+ * painting never waits for a writer, nor holds one up. Writers take
+ * turns on the collection's lock and publish a new snapshot when done;
+ * a caller that needs several steps to go together (selecting an Item,
+ * then removing it) holds that lock around them.
+ * Snapshots share the array of Items wherever they can: an add only
+ * writes past the end of the newest snapshot, where no reader looks,
+ * while anything that moves Items (remove, sort, setOrder) works on a
+ * copy, which costs no more than the shifting those do anyway.
+ * Highlighting is part of the snapshot instead of being set on the
+ * Items, so a painter never sees an Item highlighted half way.
+ * The listener hears about changes from the writer, under the lock.
+ */
+public class ConcurrentDataCollection extends AbstractDataCollection
+{
+	/**
+	 * The Items in order, the selected position (or -1) and the Items
+	 * highlighted all together (or null), as seen by everyone until a
+	 * writer replaces them
+	 */
+	private static final class Snapshot
+	{
+		final Item [] items;				// Shared; only [0, size) belongs to us
+		final int size;
+		final int selected;
+		final Map<Item, Boolean> highlighted;
+
+		Snapshot(Item [] someItems, int someSize, int someSelected,
+				 Map<Item, Boolean> someHighlighted)
+		{
+			items = someItems;
+			size = someSize;
+			selected = someSelected < someSize ? someSelected : -1;
+			highlighted = someHighlighted;
+		}
+	}
+
+	/**
+	 * The current snapshot
+	 */
+	private volatile Snapshot snapshot = new Snapshot(new Item[16], 0, -1, null);
+
+	/**
+	 * The lower left point of the first Item in the collection
+	 */
+	private int x, y;
+
+	/**
+	 * Instantiates an empty collection, with nothing selected.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public ConcurrentDataCollection(int someX, int someY)
+	{
+		x = someX;
+		y = someY;
+	}
+
+	//
+	//	Reading, from the current snapshot without locking
+	//
+
+	public int size()
+	{
+		return snapshot.size;
+	}
+
+	public Item get(int index)
+	{
+		Snapshot now = snapshot;
+		if (index < 0 || index >= now.size)
+			throw new IndexOutOfBoundsException("No item " + index + " in a collection of "
+												+ now.size);
+		return now.items[index];
+	}
+
+	public boolean hasNext()
+	{
+		return snapshot.selected > -1;
+	}
+
+	/**
+	 * Looks the position up in the current snapshot, since the Items
+	 * themselves are never highlighted.
+	 */
+	public boolean isHighlighted(int index)
+	{
+		Snapshot now = snapshot;
+		if (index < 0 || index >= now.size)
+			throw new IndexOutOfBoundsException("No item " + index + " in a collection of "
+												+ now.size);
+		return index == now.selected
+			|| (now.highlighted != null && now.highlighted.containsKey(now.items[index]));
+	}
+
+	/**
+	 * Returns a new array holding the Items of the collection, in
+	 * order, all from the same snapshot.
+	 */
+	public Item [] toArray()
+	{
+		Snapshot now = snapshot;
+		Item [] result = new Item[now.size];
+		System.arraycopy(now.items, 0, result, 0, now.size);
+		return result;
+	}
+
+	/**
+	 * Returns an iterator over the Items of the current snapshot,
+	 * which writers cannot change under it.
+	 */
+	public Iterator<Item> iterator()
+	{
+		return Arrays.asList(toArray()).iterator();
+	}
+
+	/**
+	 * Looks through one snapshot for the left-most tallest Item.
+	 */
+	public int indexOfMaximum()
+	{
+		Snapshot now = snapshot;
+		int result = now.size > 0 ? 0 : -1;
+		for (int i = 1; i < now.size; i++)
+			if (now.items[i].getValue() > now.items[result].getValue())
+				result = i;
+		return result;
+	}
+
+	/**
+	 * Looks through one snapshot for the left-most shortest Item.
+	 */
+	public int indexOfMinimum()
+	{
+		Snapshot now = snapshot;
+		int result = now.size > 0 ? 0 : -1;
+		for (int i = 1; i < now.size; i++)
+			if (now.items[i].getValue() < now.items[result].getValue())
+				result = i;
+		return result;
+	}
+
+	/**
+	 * Paints the Items of the current snapshot that fall inside the
+	 * area being painted, from left to right, without locking.
+	 */
+	public void paint(Graphics pane)
+	{
+		Snapshot now = snapshot;
+		int first = 0, last = now.size;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+									   / Item.OVERALL_WIDTH + 2);
+		}
+		Item bar = new Item();				// The Items themselves are never highlighted
+		for (int i = first; i < last; i++) {
+			Item item = now.items[i];
+			bar.setup(0, 0, item.getValue(), item.getColor());
+			bar.highlight(i == now.selected
+						  || (now.highlighted != null && now.highlighted.containsKey(item)));
+			bar.paint(pane, x + i * Item.OVERALL_WIDTH, y);
+		}
+	}
+
+	//
+	//	Writing, one writer at a time, each publishing a new snapshot
+	//
+
+	/**
+	 * Selects the first Item.
+	 */
+	public synchronized void reset()
+	{
+		Snapshot now = snapshot;
+		snapshot = new Snapshot(now.items, now.size, 0, null);
+		selectionMoved(now, snapshot);
+	}
+
+	/**
+	 * Defines the selected Item to be the given Item, if it is in the
+	 * collection.
+	 */
+	public synchronized void reset(Item someItem)
+	{
+		Snapshot now = snapshot;
+		snapshot = new Snapshot(now.items, now.size,
+								someItem == null ? -1 : indexOf(now, someItem), null);
+		selectionMoved(now, snapshot);
+	}
+
+	/**
+	 * Tells the listener which Items one snapshot highlights differently
+	 * from the one before.
+	 */
+	private void selectionMoved(Snapshot before, Snapshot after)
+	{
+		if (before.highlighted != null || after.highlighted != null)
+			highlightChanged(0, Math.max(before.size, after.size));
+		else if (before.selected != after.selected) {
+			if (before.selected != -1)
+				highlightChanged(before.selected, before.selected + 1);
+			if (after.selected != -1)
+				highlightChanged(after.selected, after.selected + 1);
+		}
+	}
+
+	/**
+	 * Returns the position of the given Item in the given snapshot, or
+	 * -1 if it is not there, trying the position it remembers first.
+	 */
+	private static int indexOf(Snapshot now, Item someItem)
+	{
+		int i = someItem.getPosition();
+		if (i >= 0 && i < now.size && now.items[i] == someItem)
+			return i;
+		for (i = 0; i < now.size; i++)
+			if (now.items[i] == someItem) {
+				someItem.setPosition(i);
+				return i;
+			}
+		return -1;
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be Items of the
+	 * collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public synchronized void highlight(Item [] someItems)
+	{
+		Map<Item, Boolean> highlighted = new IdentityHashMap<Item, Boolean>();
+		for (int i = 0; i < someItems.length; i++)
+			highlighted.put(someItems[i], Boolean.TRUE);
+		Snapshot now = snapshot;
+		snapshot = new Snapshot(now.items, now.size, -1, highlighted);
+		selectionMoved(now, snapshot);
+	}
+
+	/**
+	 * Adds the given Item to the end of the collection.
+	 * That Item becomes the Item currently selected.
+	 */
+	public synchronized void add(Item someItem)
+	{
+		addAll(new Item [] {someItem});
+	}
+
+	/**
+	 * Adds the given Items to the end of the collection, writing them
+	 * past the end of the current snapshot (or into a bigger copy).
+	 * The last of them becomes the Item currently selected.
+	 */
+	public synchronized void addAll(Item [] someItems)
+	{
+		if (someItems.length == 0)
+			return;
+		Snapshot now = snapshot;
+		Item [] items = now.items;
+		int size = now.size + someItems.length;
+		if (size > items.length) {
+			items = new Item[Math.max(size, items.length * 2)];
+			System.arraycopy(now.items, 0, items, 0, now.size);
+		}
+		for (int i = 0; i < someItems.length; i++) {
+			items[now.size + i] = someItems[i];
+			someItems[i].setPosition(now.size + i);
+		}
+		snapshot = new Snapshot(items, size, size - 1, null);
+		itemsChanged(now.size, size);
+		selectionMoved(now, snapshot);
+	}
+
+	/**
+	 * Returns the selected Item (if any) and selects the next one.
+	 */
+	public synchronized Item next()
+	{
+		Snapshot now = snapshot;
+		if (now.selected == -1)
+			return null;
+		snapshot = new Snapshot(now.items, now.size, now.selected + 1, null);
+		selectionMoved(now, snapshot);
+		return now.items[now.selected];
+	}
+
+	/**
+	 * Removes the selected Item (if any), on a copy of the Items.
+	 * No Item is selected any more.
+	 */
+	public synchronized void remove()
+	{
+		Snapshot now = snapshot;
+		if (now.selected > -1) {
+			Item [] items = new Item[now.items.length];
+			System.arraycopy(now.items, 0, items, 0, now.selected);
+			for (int i = now.selected + 1; i < now.size; i++) {
+				items[i - 1] = now.items[i];
+				items[i - 1].setPosition(i - 1);
+			}
+			snapshot = new Snapshot(items, now.size - 1, -1, null);
+			itemsChanged(now.selected, now.size);	//	The rest moved left
+		}
+	}
+
+	/**
+	 * Puts the Items in the order of the given array, which must hold
+	 * exactly the Items of the collection. No Item is selected any more.
+	 */
+	public synchronized void setOrder(Item [] someItems)
+	{
+		Snapshot now = snapshot;
+		if (someItems.length != now.size)
+			throw new IllegalArgumentException("Expected " + now.size + " Items, not "
+											   + someItems.length);
+		Item [] items = new Item[now.items.length];
+		System.arraycopy(someItems, 0, items, 0, now.size);
+		publishOrder(items, now.size);
+	}
+
+	/**
+	 * Sorts a copy of the Items from smallest to largest with the given
+	 * strategy and publishes it. Readers and painters go on seeing the
+	 * Items in their old order until then; other writers wait.
+	 * No Item is selected any more.
+	 */
+	public synchronized void sortInPlace(SortStrategy strategy)
+	{
+		Snapshot now = snapshot;
+		Item [] items = new Item[now.items.length];
+		System.arraycopy(now.items, 0, items, 0, now.size);
+		strategy.sort(items, 0, now.size);
+		publishOrder(items, now.size);
+	}
+
+	/**
+	 * Publishes the given number of first Items of the given array,
+	 * which no one else has, with nothing selected.
+	 */
+	private void publishOrder(Item [] items, int size)
+	{
+		for (int i = 0; i < size; i++)
+			items[i].setPosition(i);
+		Snapshot now = snapshot;
+		snapshot = new Snapshot(items, size, -1, null);
+		itemsChanged(0, size);
+		selectionMoved(now, snapshot);
+	}
+
+}	// end ConcurrentDataCollection
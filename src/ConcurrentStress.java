@@ -0,0 +1,188 @@
+import java.awt.*;							//	AWT = "Abstract Window Toolkit"
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Puts a ConcurrentDataCollection under load from several threads at
+ * once, and checks that it comes out whole.
+ * One thread keeps selecting and removing Items, one keeps adding,
+ * one keeps sorting, one keeps highlighting the largest Items, and one
+ * keeps painting (into an image) and copying the collection out,
+ * checking that every copy is whole. At the end no thread may have
+ * failed, no Item may appear twice, the size must be what the adds and
+ * removes make it, and a last sort must put every Item in order.
+ * Run it with
+ *		java ConcurrentStress [seconds] [Items]
+ * (5 seconds and 50000 Items by default); it prints what each thread
+ * did and exits with status 1 if anything went wrong.
+ */
+public class ConcurrentStress
+{
+	/**
+	 * The collection under load
+	 */
+	private final ConcurrentDataCollection collection = new ConcurrentDataCollection(0, 100);
+
+	/**
+	 * Set to stop all the threads
+	 */
+	private volatile boolean stopped;
+
+	/**
+	 * What the threads did, and the longest a paint took in nanoseconds
+	 */
+	private final AtomicLong removes = new AtomicLong(), adds = new AtomicLong(),
+		sorts = new AtomicLong(), highlights = new AtomicLong(), paints = new AtomicLong(),
+		slowestPaint = new AtomicLong();
+
+	/**
+	 * What went wrong, on any thread
+	 */
+	private final java.util.List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+	public static void main(String [] arguments) throws InterruptedException
+	{
+		System.setProperty("java.awt.headless", "true");	//	Paints into an image only
+		int seconds = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 5;
+		int items = arguments.length > 1 ? Integer.parseInt(arguments[1]) : 50000;
+		System.exit(new ConcurrentStress().run(seconds, items) ? 0 : 1);
+	}
+
+	/**
+	 * Runs all the threads for the given number of seconds on a
+	 * collection that starts with the given number of Items.
+	 * @return whether the collection came out whole
+	 */
+	public boolean run(int seconds, int items) throws InterruptedException
+	{
+		Random random = new Random(1);
+		int [] values = new int[items];
+		for (int i = 0; i < items; i++)
+			values[i] = 1 + random.nextInt(16);
+		collection.addAll(values, Color.orange);
+		collection.reset(null);
+
+		Thread [] threads = {
+			new Worker("Remover") {
+				Random random = new Random(2);
+				void step() {
+					int size = collection.size();
+					if (size > 1000) {
+						Item item = collection.get(random.nextInt(size));
+						synchronized (collection) {	//	Select and remove together
+							collection.reset(item);
+							if (collection.hasNext()) {
+								collection.remove();
+								removes.incrementAndGet();
+							}
+						}
+					}
+				}
+			},
+			new Worker("Adder") {
+				Random random = new Random(3);
+				void step() {
+					collection.add(new Item(1 + random.nextInt(16), Color.orange));
+					if (adds.incrementAndGet() % 64 == 0)
+						Thread.yield();			//	Let the others grow it too
+				}
+			},
+			new Worker("Sorter") {
+				void step() {
+					collection.sortInPlace(new MergeSorter());
+					sorts.incrementAndGet();
+				}
+			},
+			new Worker("Highlighter") {
+				void step() {
+					synchronized (collection) {	//	Read several values together
+						collection.highlight(Selector.largest(collection, 3));
+					}
+					highlights.incrementAndGet();
+				}
+			},
+			new Worker("Painter") {
+				BufferedImage image = new BufferedImage(1200, 200, BufferedImage.TYPE_INT_RGB);
+				Graphics pane = image.getGraphics();
+				void step() {
+					pane.setClip((int) (paints.get() % 50) * 600, 0, 1200, 200);
+					long start = System.nanoTime();
+					collection.paint(pane);
+					long nanos = System.nanoTime() - start;
+					if (nanos > slowestPaint.get())
+						slowestPaint.set(nanos);
+					paints.incrementAndGet();
+
+					Item [] copy = collection.toArray();
+					for (int i = 0; i < copy.length; i++)
+						if (copy[i] == null)
+							throw new IllegalStateException("A copy has a hole at " + i);
+				}
+			}
+		};
+		for (int i = 0; i < threads.length; i++)
+			threads[i].start();
+		Thread.sleep(1000L * seconds);
+		stopped = true;
+		for (int i = 0; i < threads.length; i++)
+			threads[i].join();
+
+		check(items);
+		System.out.println(removes + " removes, " + adds + " adds, " + sorts + " sorts, "
+						   + highlights + " highlights, " + paints + " paints (slowest "
+						   + slowestPaint.get() / 1000000 + " ms)");
+		for (int i = 0; i < failures.size(); i++)
+			System.out.println("Failed: " + failures.get(i));
+		return failures.isEmpty();
+	}
+
+	/**
+	 * Checks that the collection came out whole.
+	 */
+	private void check(int items)
+	{
+		Item [] all = collection.toArray();
+		Map<Item, Boolean> seen = new IdentityHashMap<Item, Boolean>();
+		for (int i = 0; i < all.length; i++)
+			if (seen.put(all[i], Boolean.TRUE) != null)
+				failures.add(new IllegalStateException("Item at " + i + " appears twice"));
+		long expected = items + adds.get() - removes.get();
+		if (all.length != expected)
+			failures.add(new IllegalStateException(all.length + " Items instead of " + expected));
+
+		collection.sortInPlace(new MergeSorter());
+		for (int i = 1; i < collection.size(); i++)
+			if (collection.getValue(i - 1) > collection.getValue(i)) {
+				failures.add(new IllegalStateException("Out of order at " + i));
+				break;
+			}
+	}
+
+	/**
+	 * A thread that repeats a step until stopped, noting what failed.
+	 */
+	private abstract class Worker extends Thread
+	{
+		Worker(String name)
+		{
+			super(name);
+		}
+
+		/**
+		 * Does one thing to the collection.
+		 */
+		abstract void step();
+
+		public void run()
+		{
+			try {
+				while (! stopped)
+					step();
+			} catch (Throwable t) {
+				failures.add(t);
+			}
+		}
+	}
+
+}	// end ConcurrentStress
@@ -0,0 +1,112 @@
+/**
+ * Sorts a range of an array of Items using counting sort.
+ * The Items of each value are counted, and then every Item is
+ * placed directly where its value begins, so the time is linear
+ * in the number of Items plus the number of possible values.
+ * That pays off when values come from a small range, like the
+ * heights of the Items of a DataOrganizer.
+ * The sort is stable. Ranges whose values are too spread out
+ * are handed to radix sort instead.
+ */
+public class CountingSorter implements SortStrategy
+{
+	/**
+	 * The largest number of distinct values we are willing to count
+	 */
+	public static final int MAXIMUM_KEYS = 1 << 16;
+
+	public String getName()
+	{
+		return "Counting";
+	}
+
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	public boolean supportsKeys(int lowest, int highest)
+	{
+		return (long) highest - lowest < MAXIMUM_KEYS;
+	}
+
+	public long getComparisons()
+	{
+		return 0;							// Never compares two Items
+	}
+
+	public SortStrategy newInstance()
+	{
+		return new CountingSorter();
+	}
+
+	public void sort(Item [] items, int from, int to)
+	{
+		if (to - from < 2)
+			return;
+
+		int lowest = items[from].getValue(), highest = lowest;
+		for (int i = from + 1; i < to; i++) {	// Find the range of the values
+			int value = items[i].getValue();
+			if (value < lowest)
+				lowest = value;
+			else if (value > highest)
+				highest = value;
+		}
+		if (! supportsKeys(lowest, highest)) {
+			new RadixSorter().sort(items, from, to);
+			return;
+		}
+
+		int [] starts = new int[highest - lowest + 2];
+		for (int i = from; i < to; i++)			// Count every value
+			starts[items[i].getValue() - lowest + 1]++;
+		for (int k = 1; k < starts.length; k++)	// Where each value begins
+			starts[k] += starts[k - 1];
+
+		Item [] scratch = new Item[to - from];
+		for (int i = from; i < to; i++)			// Left to right keeps it stable
+			scratch[starts[items[i].getValue() - lowest]++] = items[i];
+		System.arraycopy(scratch, 0, items, from, to - from);
+	}
+
+	/**
+	 * Sorts the range [from, to) of the given keys, moving the
+	 * satellite values along with their keys. Keys that are too
+	 * spread out are handed to radix sort instead.
+	 */
+	public static void sort(int [] keys, int [] satellite, int from, int to)
+	{
+		if (to - from < 2)
+			return;
+
+		int lowest = keys[from], highest = lowest;
+		for (int i = from + 1; i < to; i++) {	// Find the range of the keys
+			if (keys[i] < lowest)
+				lowest = keys[i];
+			else if (keys[i] > highest)
+				highest = keys[i];
+		}
+		if ((long) highest - lowest >= MAXIMUM_KEYS) {
+			RadixSorter.sort(keys, satellite, from, to);
+			return;
+		}
+
+		int [] starts = new int[highest - lowest + 2];
+		for (int i = from; i < to; i++)			// Count every key
+			starts[keys[i] - lowest + 1]++;
+		for (int k = 1; k < starts.length; k++)	// Where each key begins
+			starts[k] += starts[k - 1];
+
+		int [] scratch = new int[to - from];	// Only the satellites need moving;
+		for (int i = from; i < to; i++)			//		the keys can be written anew
+			scratch[starts[keys[i] - lowest]++] = satellite[i];
+		System.arraycopy(scratch, 0, satellite, from, to - from);
+
+		int position = from;
+		for (int k = 0; k < starts.length - 1; k++)	// starts[k] is now where key k ends
+			while (position < from + starts[k])
+				keys[position++] = lowest + k;
+	}
+
+}	// end CountingSorter
@@ -1,3 +1,4 @@
+import java.awt.Color;
 import java.awt.Graphics;							//	AWT = "Abstract Window Toolkit"
 
 /**
@@ -11,7 +12,7 @@ import java.awt.Graphics;							//	AWT = "Abstract Window Toolkit"
  * @author nickie
  *
  */
-public interface DataCollection
+public interface DataCollection extends Iterable<Item>
 {
 	/**
 	 * By default, the reset method resets the selected item to the beginning
@@ -25,12 +26,32 @@ public interface DataCollection
 	 */
 	public void reset(Item someItem);
 
+	/**
+	 * Highlights all of the given items, which must be items of the
+	 * collection, until the selected item changes.
+	 * No item is selected.
+	 */
+	public void highlight(Item [] someItems);
+
 	/**
 	 * Adds the given Item to the collection.
 	 * That item becomes the item currently selected.
 	 */
 	public void add(Item someItem);
 
+	/**
+	 * Adds the given Items to the end of the collection, in order.
+	 * The last of them becomes the item currently selected.
+	 */
+	public void addAll(Item [] someItems);
+
+	/**
+	 * Adds Items with the given values, all of the given color, to the
+	 * end of the collection, in order. The last of them becomes the
+	 * item currently selected.
+	 */
+	public void addAll(int [] someValues, Color someColor);
+
 	/**
 	 * Paints all items in the collection
 	 * Items are painted from left to right
@@ -45,6 +66,12 @@ public interface DataCollection
 	 */
 	public boolean hasNext();
 
+	/**
+	 * Determines whether the item at the given position is selected
+	 * or highlighted.
+	 */
+	public boolean isHighlighted(int index);
+
 	/**
 	 * Returns the selected Item (if any Item is selected) and
 	 * sets the next one (in the order in which the Items were
@@ -61,4 +88,78 @@ public interface DataCollection
 	 */
 	public void remove();
 
+	/**
+	 * Returns the number of items in the collection.
+	 */
+	public int size();
+
+	/**
+	 * Returns the item at the given position (counting from 0, in the
+	 * order in which the items were added) without selecting it.
+	 * @throws IndexOutOfBoundsException if there is no such item
+	 */
+	public Item get(int index);
+
+	/**
+	 * Returns the value of the item at the given position, without
+	 * selecting it (or making an Item for it, where there is none).
+	 * @throws IndexOutOfBoundsException if there is no such item
+	 */
+	public int getValue(int index);
+
+	/**
+	 * Returns the position of the tallest item (the left-most one, if
+	 * there is a tie), or -1 if the collection is empty.
+	 * The selected item does not change.
+	 */
+	public int indexOfMaximum();
+
+	/**
+	 * Returns the position of the shortest item (the left-most one, if
+	 * there is a tie), or -1 if the collection is empty.
+	 * The selected item does not change.
+	 */
+	public int indexOfMinimum();
+
+	/**
+	 * Returns an iterator over the items, in the order in which they
+	 * were added, that does not change which item is selected.
+	 */
+	public java.util.Iterator<Item> iterator();
+
+	/**
+	 * Returns a new array holding the items of the collection,
+	 * in the order in which they were added.
+	 */
+	public Item [] toArray();
+
+	/**
+	 * Puts the items of the collection in the order of the given
+	 * array, which must hold exactly the items of the collection.
+	 * No item is selected any more.
+	 */
+	public void setOrder(Item [] someItems);
+
+	/**
+	 * Sorts the items in the collection from smallest to largest
+	 * using the given strategy. No item is selected any more.
+	 * A collection that cannot reorder itself throws an
+	 * UnsupportedOperationException; it can still be sorted through
+	 * its cursor.
+	 */
+	public void sortInPlace(SortStrategy strategy);
+
+	/**
+	 * Tells the given listener (or nobody, if it is null) about every
+	 * change to the collection from now on, instead of the last one.
+	 */
+	public void setListener(CollectionListener someListener);
+
+	/**
+	 * Looks through many items at once with the given scanner from now
+	 * on, where the collection looks through them all (for instance for
+	 * its tallest and shortest items).
+	 */
+	public void setScanner(ParallelScanner someScanner);
+
 }
@@ -11,9 +11,16 @@ import java.applet.*;
 public class DataOrganizer implements MouseListener
 {
 	/**
-	 * Maximum number of Items and maximum height of an Item
+	 * Default number of Items (the applet parameter "collectionSize"
+	 * changes it) and maximum height of an Item
 	 */
-	private final int COLLECTION_SIZE = 10,	MAXIMUM_ITEM_VALUE = 16;	
+	protected final int COLLECTION_SIZE = 10,	MAXIMUM_ITEM_VALUE = 16;	
+
+	/**
+	 * Default percentile Percentile reports besides the quartiles
+	 * (the applet parameter "percentile" changes it)
+	 */
+	protected final int PERCENTILE = 90;
 
 	/**
 	 * So we can repaint whenever a button is clicked
@@ -35,7 +42,65 @@ public class DataOrganizer implements MouseListener
 	 * and remove the max or min if it has been selected
 	 */
 	Abutton randomButton, maximumButton, minimumButton,
-	removeButton;			
+	removeButton, insertButton;			
+
+	/**
+	 * Report statistics of the collection in the status bar,
+	 * worked out in one pass without sorting
+	 */
+	Abutton meanButton, varianceButton, percentileButton;
+
+	/**
+	 * Works statistics out in parallel chunks for large collections
+	 * (of at least the applet parameter "scanThreshold" Items)
+	 */
+	ParallelScanner scanner;
+
+	/**
+	 * Pictures of the bars already painted, shared by all Items
+	 * (at most the applet parameter "sprites" of them, none if 0)
+	 */
+	BarSprites sprites;
+
+	/**
+	 * Whether every click shows how often the pictures were found, as
+	 * the applet parameter "spriteCounts" asks with "true"
+	 */
+	boolean spriteCounts;
+
+	/**
+	 * Paints collections too long to show Item by Item, one column of
+	 * pixels at a time
+	 */
+	EnvelopePainter envelope;
+
+	/**
+	 * The part of the applet to paint again, or null if none
+	 */
+	private Rectangle dirty;
+
+	/**
+	 * Marks where the Items that change are painted as dirty
+	 */
+	CollectionListener collectionListener = new CollectionListener() {
+		public void highlightChanged(DataCollection changed, int from, int to) {
+			if (changed == collection) {
+				if (! showsEnvelope())
+					markDirty(itemBounds(from, to));
+				else {						//	The columns holding them
+					Rectangle columns = envelope.highlightChanged(changed, from, to);
+					markDirty(columns == null ? collectionBounds() : columns);
+				}
+			}
+		}
+
+		public void itemsChanged(DataCollection changed, int from, int to) {
+			if (changed == collection) {
+				envelope.invalidate();
+				markDirty(showsEnvelope() ? collectionBounds() : itemBounds(from, to));
+			}
+		}
+	};
 
 	/**
 	 * Holds where mouse was most recently pressed
@@ -68,26 +133,103 @@ public class DataOrganizer implements MouseListener
 
 		y += 1.5*Abutton.BUTTON_HEIGHT;
 		removeButton = new Abutton("Remove", Color.pink, x, y);
-		
+		y += 1.1*Abutton.BUTTON_HEIGHT;
+		insertButton = new Abutton("Insert", Color.pink, x, y);
+
+		y += 1.5*Abutton.BUTTON_HEIGHT;
+		meanButton = new Abutton("Mean", Color.magenta, x, y);
+		y += 1.1*Abutton.BUTTON_HEIGHT;
+		varianceButton = new Abutton("Variance", Color.magenta, x, y);
+		y += 1.1*Abutton.BUTTON_HEIGHT;
+		percentileButton = new Abutton("Percentile", Color.magenta, x, y);
+		scanner = new ParallelScanner(intParameter("scanThreshold", ParallelScanner.THRESHOLD));
+		useSprites();
 		
 		x += 1.5*Abutton.BUTTON_WIDTH;
 		y += 1*Abutton.BUTTON_HEIGHT;
+		envelope = new EnvelopePainter(x, y);
 	}
 
 	/**
-	 * Generates a collection of 10 Items with random heights
+	 * Returns the value of the given applet parameter as an int,
+	 * or the given default if the parameter is missing or not a number.
 	 */
-	public void randomAction()
+	protected int intParameter(String name, int defaultValue)
+	{
+		try {
+			String value = theApplet.getParameter(name);
+			if (value != null)
+				return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {}	//	Not a number, so use the default
+		return defaultValue;
+	}
+
+	/**
+	 * Has every Item painted from a picture of its bar, keeping at
+	 * most as many pictures as the applet parameter "sprites" says,
+	 * or drawn line by line if that is 0.
+	 */
+	protected void useSprites()
+	{
+		int capacity = intParameter("sprites", BarSprites.CAPACITY);
+		sprites = capacity > 0 ? new BarSprites(capacity) : null;
+		Item.setSprites(sprites);
+		spriteCounts = sprites != null && "true".equals(theApplet.getParameter("spriteCounts"));
+	}
+
+	/**
+	 * Makes an empty collection of the kind named by the applet
+	 * parameter "collection": "array" (the default), "primitive" for
+	 * one that keeps no Item objects, "heap" for one that finds and
+	 * removes its tallest and shortest Items quickly, "linked" for one
+	 * that removes the selected Item in constant time, "concurrent" for
+	 * one that many threads can use at once, "persistent" for one that
+	 * can undo changes, "compressed" for one that keeps a few bits per
+	 * Item, or "file" for one kept on disk.
+	 */
+	protected DataCollection newCollection()
 	{
-		collection= new ArrayDataCollection(x, y);				//	We restart with nothing,
-		//		then we add random items,
-		for (int i = 0; i < COLLECTION_SIZE; i++) {
-			Item temp = new Item();
-			temp.setValue((int)(1 + MAXIMUM_ITEM_VALUE*Math.random()));
-			temp.setColor(Color.orange);
-			collection.add(temp);
+		String kind = theApplet.getParameter("collection");
+		if ("primitive".equals(kind))
+			return new PrimitiveDataCollection(x, y);
+		if ("heap".equals(kind))
+			return new HeapDataCollection(x, y);
+		if ("linked".equals(kind))
+			return new LinkedDataCollection(x, y);
+		if ("concurrent".equals(kind))
+			return new ConcurrentDataCollection(x, y);
+		if ("persistent".equals(kind))
+			return new PersistentDataCollection(x, y);
+		if ("compressed".equals(kind))
+			return new CompressedDataCollection(x, y);
+		if ("file".equals(kind)) {
+			try {
+				return new FileDataCollection(x, y);
+			} catch (java.io.IOException e) {
+				theApplet.showStatus("No file collection: " + e.getMessage());
+			}
 		}
+		return new ArrayDataCollection(x, y);
+	}
+
+	/**
+	 * Generates a collection of 10 Items (or as many as the applet
+	 * parameter "collectionSize" asks for) with random heights
+	 */
+	public void randomAction()
+	{
+		if (collection instanceof FileDataCollection)	//	Let go of its file
+			((FileDataCollection) collection).close();
+		collection= newCollection();				//	We restart with nothing,
+		//		then we add random items, all at once
+		int [] values = new int[Math.max(0, intParameter("collectionSize", COLLECTION_SIZE))];
+		for (int i = 0; i < values.length; i++)
+			values[i] = (int)(1 + MAXIMUM_ITEM_VALUE*Math.random());
+		collection.addAll(values, Color.orange);
 		collection.reset(null);				//	We make sure nothing is selected
+		collection.setListener(collectionListener);
+		collection.setScanner(scanner);		//	As the applet parameters say
+		markDirty(collectionBounds());		//	All of it is new
 	}
 
 	/**
@@ -98,23 +240,9 @@ public class DataOrganizer implements MouseListener
 	public void maximumAction()
 	{
 		if(collection != null){
-			Item maximumItem = null,
-			someItem;
-
-			collection.reset();						//	We start at the beginning
-
-			if(collection.hasNext())
-				maximumItem = collection.next();
-
-			while (collection.hasNext()) {
-				//	What's next?
-				someItem = collection.next();
-
-				//	If it is the largest so far, we keep track of it
-				if  (someItem.getValue() > maximumItem.getValue()) 
-					maximumItem = someItem;				
-			}
-			collection.reset(maximumItem);
+			//	The collection knows where its tallest Item is
+			int maximumIndex = collection.indexOfMaximum();
+			collection.reset(maximumIndex >= 0 ? collection.get(maximumIndex) : null);
 		}
 	}
 
@@ -126,34 +254,195 @@ public class DataOrganizer implements MouseListener
 	public void minimumAction()
 	{
 		if(collection != null){
-			Item minimumItem = null,
-			someItem;
+			//	The collection knows where its shortest Item is
+			int minimumIndex = collection.indexOfMinimum();
+			collection.reset(minimumIndex >= 0 ? collection.get(minimumIndex) : null);
+		}
+	}
 
-			collection.reset();
+	/**
+	 * Removes selected Item, if there is any
+	 */
+	public void removeAction()
+	{
+		if(collection != null)
+			collection.remove();
+	}
 
-			if(collection.hasNext())
-				minimumItem = collection.next();
+	/**
+	 * Inserts an Item with a random height right after the selected
+	 * one, which only the linked collection does (in constant time);
+	 * the others can only add Items at the end
+	 */
+	public void insertAction()
+	{
+		if (collection instanceof LinkedDataCollection)
+			((LinkedDataCollection) collection).insert(
+					new Item((int)(1 + MAXIMUM_ITEM_VALUE*Math.random()), Color.orange));
+		else if (collection != null)
+			theApplet.showStatus("Only the linked collection inserts");
+	}
 
-			while (collection.hasNext()) {
-				//	What's next?
-				someItem = (Item) (collection.next());
+	/**
+	 * Shows the number of Items, their mean and their most frequent
+	 * value, from one pass over the collection
+	 * (in parallel chunks, when it is large)
+	 */
+	public void meanAction()
+	{
+		if (collection != null && collection.size() > 0) {
+			StreamingStatistics statistics = scanner.statistics(collection);
+			String mode = statistics.isExact()
+				? ", mode " + statistics.getMode() + " (" + statistics.getModeCount() + " times)"
+				: "";
+			theApplet.showStatus(statistics.size() + " Items, mean "
+								 + format(statistics.getMean()) + mode);
+		}
+	}
 
-				//	If it is the smallest so far, we keep track of it
-				if (someItem.getValue() < minimumItem.getValue())
-					minimumItem = someItem;					
-			}
+	/**
+	 * Shows the variance and the standard deviation of the Items,
+	 * from one pass over the collection
+	 */
+	public void varianceAction()
+	{
+		if (collection != null && collection.size() > 0) {
+			StreamingStatistics statistics = scanner.statistics(collection);
+			theApplet.showStatus("Variance " + format(statistics.getVariance())
+								 + ", standard deviation "
+								 + format(statistics.getStandardDeviation()));
+		}
+	}
 
-			collection.reset(minimumItem);
+	/**
+	 * Shows the quartiles of the Items and the percentile asked for by
+	 * the applet parameter "percentile" (90 by default), from one pass
+	 * over the collection; they are estimates when the values are too
+	 * spread out to count
+	 */
+	public void percentileAction()
+	{
+		if (collection != null && collection.size() > 0) {
+			StreamingStatistics statistics = scanner.statistics(collection);
+			int percent = Math.max(0, Math.min(100, intParameter("percentile", PERCENTILE)));
+			theApplet.showStatus((statistics.isExact() ? "Quartiles " : "Quartiles about ")
+								 + format(statistics.getPercentile(25)) + ", "
+								 + format(statistics.getPercentile(50)) + ", "
+								 + format(statistics.getPercentile(75)) + "; percentile "
+								 + percent + ": " + format(statistics.getPercentile(percent)));
 		}
 	}
 
 	/**
-	 * Removes selected Item, if there is any
+	 * Writes the given number with at most two decimals
 	 */
-	public void removeAction()
+	protected static String format(double number)
 	{
-		if(collection != null)
-			collection.remove();
+		if (number == Math.rint(number) && Math.abs(number) < 1e15)
+			return String.valueOf((long) number);
+		return String.valueOf(Math.round(number * 100) / 100.0);
+	}
+
+	/**
+	 * Paints the collection Item by Item if it fits in the width of the
+	 * applet, or else as an envelope with one bar per column of pixels.
+	 * The applet parameter "render" can ask for "bars" or "envelope"
+	 * whatever the size.
+	 */
+	protected void paintCollection(Graphics pane)
+	{
+		if (sprites != null)
+			sprites.setBackground(theApplet.getBackground());
+		if (showsEnvelope())
+			envelope.paint(pane, collection, envelopeWidth());
+		else
+			collection.paint(pane);
+	}
+
+	/**
+	 * Determines whether the collection is painted as an envelope.
+	 */
+	protected boolean showsEnvelope()
+	{
+		String render = theApplet.getParameter("render");
+		return "envelope".equals(render)
+			|| (! "bars".equals(render) && collection != null
+				&& (long) collection.size() * Item.OVERALL_WIDTH > envelopeWidth());
+	}
+
+	/**
+	 * Returns the number of columns of pixels the envelope can take.
+	 */
+	private int envelopeWidth()
+	{
+		return Math.max(1, theApplet.getWidth() - x - Item.DELTA);
+	}
+
+	/**
+	 * Returns the area where the collection is painted: right of the
+	 * buttons, above the bottom line.
+	 */
+	protected Rectangle collectionBounds()
+	{
+		return new Rectangle(x - Item.DELTA, 0,
+							 Math.max(0, theApplet.getWidth() - (x - Item.DELTA)), y + 1);
+	}
+
+	/**
+	 * Returns the area where the Items from position from (included)
+	 * to position to (excluded) are painted as bars.
+	 */
+	private Rectangle itemBounds(int from, int to)
+	{
+		Rectangle all = collectionBounds();
+		long left = x + (long) from * Item.OVERALL_WIDTH - Item.DELTA,
+			 right = x + (long) to * Item.OVERALL_WIDTH - Item.DELTA + 1;
+		left = Math.max(left, all.x);
+		right = Math.min(right, all.x + all.width);
+		return new Rectangle((int) left, 0, (int) Math.max(0, right - left), all.height);
+	}
+
+	/**
+	 * Adds the given area to the part of the applet to paint again.
+	 */
+	protected synchronized void markDirty(Rectangle area)
+	{
+		if (area.isEmpty())
+			return;
+		if (dirty == null)
+			dirty = new Rectangle(area);
+		else
+			dirty.add(area);
+	}
+
+	/**
+	 * Asks for the dirty part of the applet, and only that, to be
+	 * painted again.
+	 */
+	protected synchronized void repaintDirty()
+	{
+		if (dirty != null) {
+			theApplet.repaint(dirty.x, dirty.y, dirty.width, dirty.height);
+			dirty = null;
+		}
+	}
+
+	/**
+	 * Presses or releases the given button, marking it dirty.
+	 */
+	protected void flip(Abutton button)
+	{
+		button.flip();
+		markDirty(button.getBounds());
+	}
+
+	/**
+	 * Changes the label of the given button, marking it dirty.
+	 */
+	protected void relabel(Abutton button, String label)
+	{
+		button.setLabel(label);
+		markDirty(button.getBounds());
 	}
 
 	/**
@@ -164,7 +453,7 @@ public class DataOrganizer implements MouseListener
 	public void paint(Graphics pane)
 	{
 		if (collection != null)				//	When instantiated,
-			collection.paint(pane);			//		we display the element
+			paintCollection(pane);			//		we display the element
 
 		if (randomButton != null)
 			randomButton.paint(pane);		//		and all of the buttons
@@ -176,6 +465,15 @@ public class DataOrganizer implements MouseListener
 
 		if (removeButton != null)
 			removeButton.paint(pane);
+		if (insertButton != null)
+			insertButton.paint(pane);
+
+		if (meanButton != null)
+			meanButton.paint(pane);
+		if (varianceButton != null)
+			varianceButton.paint(pane);
+		if (percentileButton != null)
+			percentileButton.paint(pane);
 	}
 
 	/**
@@ -186,27 +484,46 @@ public class DataOrganizer implements MouseListener
 	{
 
 		theApplet.showStatus(" ");			//	To reset the status bar
+		if (spriteCounts)					//		or show how the pictures do
+			theApplet.showStatus(sprites.toString());
 
-		if (randomButton.isInside(lastX, lastY)) {
-			randomAction();
-		}
+		try {
+			if (randomButton.isInside(lastX, lastY)) {
+				randomAction();
+			}
 
-		else if (maximumButton.isInside(lastX, lastY)) {
-			maximumAction();
-		}
-		else if (minimumButton.isInside(lastX, lastY)) {
-			minimumAction();
-		}
+			else if (maximumButton.isInside(lastX, lastY)) {
+				maximumAction();
+			}
+			else if (minimumButton.isInside(lastX, lastY)) {
+				minimumAction();
+			}
 
-		else if (removeButton.isInside(lastX, lastY)) {
-			removeAction();
-		}
+			else if (removeButton.isInside(lastX, lastY)) {
+				removeAction();
+			}
+			else if (insertButton.isInside(lastX, lastY)) {
+				insertAction();
+			}
+
+			else if (meanButton.isInside(lastX, lastY)) {
+				meanAction();
+			}
+			else if (varianceButton.isInside(lastX, lastY)) {
+				varianceAction();
+			}
+			else if (percentileButton.isInside(lastX, lastY)) {
+				percentileAction();
+			}
 		
-		else  {
-			theApplet.showStatus("What?");
+			else  {
+				theApplet.showStatus("What?");
+			}
+		} catch (IllegalStateException e) {	//	A collection kept on disk failed
+			theApplet.showStatus("Failed: " + e.getMessage());
 		}
 
-		theApplet.repaint();
+		repaintDirty();						//	Only what changed
 		//	Handle the mouse click
 	}
 
@@ -240,17 +557,26 @@ public class DataOrganizer implements MouseListener
 	private void flipWhenInside()
 	{
 		if (randomButton.isInside(lastX, lastY))
-			randomButton.flip();
+			flip(randomButton);
 
 		else if (maximumButton.isInside(lastX, lastY))
-			maximumButton.flip();
+			flip(maximumButton);
 		else if (minimumButton.isInside(lastX, lastY))
-			minimumButton.flip();
+			flip(minimumButton);
 
 		else if (removeButton.isInside(lastX, lastY))
-			removeButton.flip();
-
-		theApplet.repaint();
+			flip(removeButton);
+		else if (insertButton.isInside(lastX, lastY))
+			flip(insertButton);
+
+		else if (meanButton.isInside(lastX, lastY))
+			flip(meanButton);
+		else if (varianceButton.isInside(lastX, lastY))
+			flip(varianceButton);
+		else if (percentileButton.isInside(lastX, lastY))
+			flip(percentileButton);
+
+		repaintDirty();
 	}
 
 }	
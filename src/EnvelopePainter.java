@@ -0,0 +1,186 @@
+import java.awt.*;							//	AWT = "Abstract Window Toolkit"
+
+/**
+ * Paints a whole collection squeezed into a given width, with one bar
+ * per column of pixels instead of one bar per Item. Each column stands
+ * for the Items that fall into it: it is filled up to the tallest of
+ * them, and the span between the shortest and the tallest is painted
+ * darker, so spikes and dips show however many Items share a column.
+ * The shortest and the tallest of every column are worked out once,
+ * in one pass over the values, and kept until the collection changes
+ * (as the owner says) or the width does, so painting a frame takes
+ * time proportional to the width, not to the number of Items.
+ * A column holding a selected or highlighted Item gets a tick above
+ * it. The collection tells which positions changed highlighting, and
+ * only the columns holding them are looked at again.
+ */
+public class EnvelopePainter
+{
+	/**
+	 * The lower left point of the first column
+	 */
+	private int x, y;
+
+	/**
+	 * The collection, its size and the width the columns were worked
+	 * out for, or null if they must be worked out again
+	 */
+	private DataCollection painted;
+	private int paintedSize, paintedWidth;
+
+	/**
+	 * The shortest and the tallest value and the color of the first
+	 * Item of every column, whether any of its Items is selected or
+	 * highlighted, and the number of columns in use
+	 */
+	private int [] minimums, maximums;
+	private Color [] colors;
+	private boolean [] marks;
+	private int columns;
+
+	/**
+	 * The height of the tick over a marked column, and its gap to the
+	 * top of the column
+	 */
+	private static final int TICK = 4, GAP = 2;
+
+	/**
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public EnvelopePainter(int someX, int someY)
+	{
+		x = someX;
+		y = someY;
+	}
+
+	/**
+	 * Forgets the columns, for when the collection has changed.
+	 */
+	public void invalidate()
+	{
+		painted = null;
+	}
+
+	/**
+	 * Paints the given collection in the given number of columns of
+	 * pixels, working the columns out again only if needed.
+	 */
+	public void paint(Graphics pane, DataCollection collection, int width)
+	{
+		if (collection != painted || width != paintedWidth)
+			summarize(collection, width);
+
+		int first = 0, last = columns;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			first = Math.max(0, clip.x - x);
+			last = Math.min(last, clip.x + clip.width - x);
+		}
+		pane.setColor(Color.black);			//	Drawing the "bottom line"
+		pane.drawLine(x - Item.DELTA, y, x + columns + Item.DELTA, y);
+		for (int c = first; c < last; c++) {
+			int top = y - Item.HEIGHT * maximums[c], bottom = y - Item.HEIGHT * minimums[c];
+			pane.setColor(colors[c]);
+			pane.drawLine(x + c, y - 1, x + c, bottom);
+			pane.setColor(colors[c].darker());
+			pane.drawLine(x + c, bottom, x + c, top);
+			if (marks[c]) {
+				pane.setColor(Color.black);
+				pane.drawLine(x + c, top - GAP, x + c, top - GAP - TICK);
+			}
+		}
+	}
+
+	/**
+	 * Looks again at whether the columns holding the Items from
+	 * position from (included) to position to (excluded) of the given
+	 * collection hold a selected or highlighted Item.
+	 * @return the area of those columns to paint again, or null if the
+	 * columns must be worked out all over again anyway
+	 */
+	public Rectangle highlightChanged(DataCollection collection, int from, int to)
+	{
+		int size = collection.size();
+		if (collection != painted || size != paintedSize)
+			return null;
+		from = Math.max(from, 0);
+		to = Math.min(to, size);
+		if (from >= to)
+			return new Rectangle();
+		int first = columnOf(from), last = columnOf(to - 1);
+		for (int c = first; c <= last; c++)
+			marks[c] = isMarked(collection, start(c), start(c + 1));
+		return new Rectangle(x + first, 0, last - first + 1, y + 1);
+	}
+
+	/**
+	 * Works out the shortest and the tallest value of every column, in
+	 * one pass over the values. Column c stands for the Items from
+	 * c n / width to (c + 1) n / width, or for just one Item when there
+	 * are fewer Items than columns.
+	 */
+	private void summarize(DataCollection collection, int width)
+	{
+		int size = collection.size();
+		paintedSize = size;
+		columns = Math.max(0, Math.min(width, size));
+		if (minimums == null || minimums.length < columns) {
+			minimums = new int[columns];
+			maximums = new int[columns];
+			colors = new Color[columns];
+			marks = new boolean[columns];
+		}
+		for (int c = 0; c < columns; c++) {
+			int from = start(c), to = start(c + 1);
+			int minimum = collection.getValue(from), maximum = minimum;
+			for (int i = from + 1; i < to; i++) {
+				int value = collection.getValue(i);
+				if (value < minimum)
+					minimum = value;
+				else if (value > maximum)
+					maximum = value;
+			}
+			minimums[c] = minimum;
+			maximums[c] = maximum;
+			Color color = collection.get(from).getColor();
+			colors[c] = color == null ? Color.orange : color;
+			marks[c] = isMarked(collection, from, to);
+		}
+		painted = collection;
+		paintedWidth = width;
+	}
+
+	/**
+	 * Returns the position of the first Item of the given column (or
+	 * the number of Items, for the column past the last).
+	 */
+	private int start(int column)
+	{
+		return (int) ((long) paintedSize * column / columns);
+	}
+
+	/**
+	 * Returns the column the Item at the given position falls into.
+	 */
+	private int columnOf(int index)
+	{
+		int result = (int) ((long) index * columns / paintedSize);	// Never too far right
+		while (start(result + 1) <= index)
+			result++;
+		return result;
+	}
+
+	/**
+	 * Determines whether any of the Items from position from (included)
+	 * to position to (excluded) is selected or highlighted.
+	 */
+	private static boolean isMarked(DataCollection collection, int from, int to)
+	{
+		for (int i = from; i < to; i++)
+			if (collection.isHighlighted(i))
+				return true;
+		return false;
+	}
+
+}	// end EnvelopePainter
@@ -0,0 +1,352 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * Sorts a file of int values that may be far larger than memory.
+ * The file is read in runs that fit comfortably in memory; each run is
+ * sorted with the chosen SortStrategy and written to a temporary file.
+ * Then all the runs are merged in a single pass, always taking the
+ * smallest value at the head of any run from a heap of run cursors.
+ * Only one run and a buffer per run are ever in memory, whatever the
+ * size of the file. Values are read and written through NIO channels
+ * with direct buffers, in the big-endian order of DataOutputStream.
+ * On ties the earlier run goes first, so the sort is stable.
+ * The sort can report how far it has got, and be stopped, through a
+ * Progress; a stopped or failed sort leaves no temporary file behind.
+ */
+public class ExternalSorter
+{
+	/**
+	 * Hears how far a sort has got, on the thread that sorts.
+	 */
+	public interface Progress
+	{
+		/**
+		 * The sort has done the given percentage of its work.
+		 * @return false to stop the sort
+		 */
+		public boolean progress(int percent);
+	}
+
+	/**
+	 * Number of values sorted in memory at a time
+	 */
+	public static final int RUN_LENGTH = 1 << 18;
+
+	/**
+	 * Memory, in bytes, shared by the buffers of the run cursors,
+	 * and the smallest buffer a cursor gets
+	 */
+	private static final int MERGE_MEMORY = 16 << 20, MINIMUM_BUFFER = 4 << 10;
+
+	/**
+	 * Size in bytes of the buffers used for reading and writing runs
+	 */
+	private static final int BUFFER = 1 << 16;
+
+	/**
+	 * Sorts each run
+	 */
+	private SortStrategy strategy;
+
+	/**
+	 * The number of bytes sorted and the time it took by the last sort
+	 */
+	private long bytes, nanos;
+
+	/**
+	 * The number of runs of the last sort
+	 */
+	private int runs;
+
+	/**
+	 * Who to tell how far the sort has got, if anyone
+	 */
+	private Progress progress;
+
+	/**
+	 * The number of values read into runs or merged so far, and the
+	 * number to read and merge in all
+	 */
+	private long done, total;
+
+	/**
+	 * @param someStrategy sorts each run in memory
+	 */
+	public ExternalSorter(SortStrategy someStrategy)
+	{
+		strategy = someStrategy;
+	}
+
+	/**
+	 * Has the following sorts report how far they have got to the
+	 * given Progress, which can stop them.
+	 */
+	public void setProgress(Progress someProgress)
+	{
+		progress = someProgress;
+	}
+
+	/**
+	 * Returns the number of bytes sorted by the last sort.
+	 */
+	public long getBytes()
+	{
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of runs the last sort merged.
+	 */
+	public int getRuns()
+	{
+		return runs;
+	}
+
+	/**
+	 * Returns how long the last sort took, in milliseconds.
+	 */
+	public long getMillis()
+	{
+		return nanos / 1000000;
+	}
+
+	/**
+	 * Returns the number of megabytes sorted per second by the last sort.
+	 */
+	public double getMegabytesPerSecond()
+	{
+		return nanos == 0 ? 0 : (bytes / (double) (1 << 20)) / (nanos / 1e9);
+	}
+
+	/**
+	 * Sorts the first count values of the given channel into a new
+	 * temporary file in the given directory, which is returned.
+	 * The input is not changed.
+	 * @throws InterruptedIOException if the Progress stopped the sort
+	 */
+	public File sort(FileChannel input, long count, File directory) throws IOException
+	{
+		long start = System.nanoTime();
+		done = 0;
+		total = count > RUN_LENGTH ? 2 * count : count;	// One pass, or runs and a merge
+		File runFile = File.createTempFile("runs", ".dat", directory);
+		File result = null;
+		boolean sorted = false;
+		try {
+			long [] bounds = writeRuns(input, count, runFile);	// Run r is [bounds[r], bounds[r+1])
+			runs = bounds.length - 1;
+			if (runs <= 1)
+				result = runFile;				// Already one sorted run
+			else {
+				result = File.createTempFile("sorted", ".dat", directory);
+				mergeRuns(runFile, bounds, result);
+			}
+			sorted = true;
+		} finally {								// Leave nothing behind but the result
+			if (result != runFile)
+				runFile.delete();
+			if (! sorted && result != null)
+				result.delete();
+		}
+		bytes = 4 * count;
+		nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	/**
+	 * Sorts the values run by run into the given file.
+	 * @return the positions (in values) where the runs begin, and the end
+	 */
+	private long [] writeRuns(FileChannel input, long count, File runFile) throws IOException
+	{
+		int length = (int) Math.min(count, RUN_LENGTH);
+		Item [] items = new Item[length];		// Reused by every run
+		for (int i = 0; i < length; i++)
+			items[i] = new Item();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+
+		long [] bounds = new long[(int) ((count + RUN_LENGTH - 1) / RUN_LENGTH) + 1];
+		RandomAccessFile output = new RandomAccessFile(runFile, "rw");
+		try {
+			FileChannel channel = output.getChannel();
+			long position = 0;
+			for (int r = 0; position < count; r++) {
+				bounds[r] = position;
+				int runLength = (int) Math.min(RUN_LENGTH, count - position);
+				for (int i = 0; i < runLength; ) {	// Read in a run
+					buffer.clear();
+					buffer.limit(Math.min(BUFFER, 4 * (runLength - i)));
+					readFully(input, buffer, 4 * (position + i));
+					buffer.flip();
+					while (buffer.hasRemaining())
+						items[i++].setValue(buffer.getInt());
+				}
+				strategy.sort(items, 0, runLength);
+				for (int i = 0; i < runLength; ) {	// and write it out sorted
+					buffer.clear();
+					while (buffer.remaining() >= 4 && i < runLength)
+						buffer.putInt(items[i++].getValue());
+					buffer.flip();
+					while (buffer.hasRemaining())
+						channel.write(buffer);
+				}
+				position += runLength;
+				report(runLength);
+			}
+			bounds[bounds.length - 1] = count;
+		} finally {
+			output.close();
+		}
+		return bounds;
+	}
+
+	/**
+	 * Merges all the runs of the run file into the result file at once.
+	 */
+	private void mergeRuns(File runFile, long [] bounds, File result) throws IOException
+	{
+		RandomAccessFile input = new RandomAccessFile(runFile, "r");
+		RandomAccessFile output = new RandomAccessFile(result, "rw");
+		try {
+			int count = bounds.length - 1;
+			int bufferSize = Math.max(MINIMUM_BUFFER, MERGE_MEMORY / count) & ~3;
+			RunCursor [] heap = new RunCursor[count];
+			int size = 0;
+			for (int r = 0; r < count; r++) {
+				RunCursor cursor = new RunCursor(input.getChannel(), r,
+												 bounds[r], bounds[r + 1], bufferSize);
+				if (cursor.advance())
+					heap[size++] = cursor;
+			}
+			for (int i = size / 2 - 1; i >= 0; i--)	// Make it a heap
+				siftDown(heap, i, size);
+
+			FileChannel channel = output.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+			while (size > 0) {
+				RunCursor smallest = heap[0];
+				buffer.putInt(smallest.value);
+				if (! buffer.hasRemaining()) {
+					flush(channel, buffer);
+					report(BUFFER / 4);
+				}
+				if (! smallest.advance())		// That run is done
+					heap[0] = heap[--size];
+				siftDown(heap, 0, size);
+			}
+			flush(channel, buffer);
+		} finally {
+			input.close();
+			output.close();
+		}
+	}
+
+	/**
+	 * Moves the cursor at position i of the heap down until neither
+	 * of its children is smaller.
+	 */
+	private static void siftDown(RunCursor [] heap, int i, int size)
+	{
+		RunCursor moving = heap[i];
+		while (2 * i + 1 < size) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && heap[child + 1].before(heap[child]))
+				child++;
+			if (! heap[child].before(moving))
+				break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = moving;
+	}
+
+	/**
+	 * Counts the given number of values as done and tells the Progress,
+	 * if any.
+	 * @throws InterruptedIOException if the Progress stops the sort
+	 */
+	private void report(long values) throws InterruptedIOException
+	{
+		done += values;
+		if (progress != null && ! progress.progress((int) (100 * done / Math.max(total, 1))))
+			throw new InterruptedIOException("Sort stopped");
+	}
+
+	/**
+	 * Writes out whatever is in the buffer and empties it.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Reads from the channel at the given position until the buffer is full.
+	 */
+	static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+		throws IOException
+	{
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0)
+				throw new EOFException("File ended at " + position);
+			position += read;
+		}
+	}
+
+	/**
+	 * Walks through one sorted run, a buffer at a time.
+	 */
+	private static class RunCursor
+	{
+		private FileChannel channel;
+		private int run;					// Which run, for breaking ties
+		private long next, end;				// Positions in values
+		private ByteBuffer buffer;
+		private int value;					// The value at the head of the run
+
+		RunCursor(FileChannel someChannel, int someRun, long start, long someEnd,
+				  int bufferSize)
+		{
+			channel = someChannel;
+			run = someRun;
+			next = start;
+			end = someEnd;
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+			buffer.flip();						// Nothing read yet
+		}
+
+		/**
+		 * Moves on to the next value of the run.
+		 * @return false if the run has no more values
+		 */
+		boolean advance() throws IOException
+		{
+			if (! buffer.hasRemaining()) {
+				if (next == end)
+					return false;
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), 4 * (end - next)));
+				readFully(channel, buffer, 4 * next);
+				next += buffer.limit() / 4;
+				buffer.flip();
+			}
+			value = buffer.getInt();
+			return true;
+		}
+
+		/**
+		 * Determines whether this cursor's value goes before the other's.
+		 */
+		boolean before(RunCursor other)
+		{
+			return value < other.value || (value == other.value && run < other.run);
+		}
+	}
+
+}	// end ExternalSorter
@@ -0,0 +1,489 @@
+import java.awt.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * A DataCollection kept in a temporary file instead of in memory, so
+ * it can hold far more Items than would fit in the heap.
+ * Only the values of the Items are kept, as ints; every Item of the
+ * collection has the color of the collection. The Items handed out
+ * are ItemViews, made when asked for.
+ * Sorting uses an ExternalSorter, so memory use stays flat whatever
+ * the size of the collection; it can also sort into a new file on a
+ * thread of its own (sortedCopy) while the collection is painted, and
+ * have the collection use that file once it is done (useSorted).
+ * A collection that is no longer needed should be closed, which
+ * deletes its file.
+ */
+public class FileDataCollection extends AbstractDataCollection
+{
+	/**
+	 * Size in bytes of the buffers used to read and append values
+	 */
+	private static final int BUFFER = 1 << 16;
+
+	/**
+	 * The temporary file holding the values, and its channel
+	 */
+	private File file;
+	private RandomAccessFile access;
+	private FileChannel channel;
+
+	/**
+	 * The number of values in the file, not counting those
+	 * still waiting in the append buffer
+	 */
+	private int written;
+
+	/**
+	 * Values added but not yet written to the file
+	 */
+	private ByteBuffer appended = ByteBuffer.allocateDirect(BUFFER);
+
+	/**
+	 * A window of values read from the file, starting at windowStart
+	 */
+	private ByteBuffer window = ByteBuffer.allocateDirect(BUFFER);
+	private int windowStart, windowLength;
+
+	/**
+	 * The color of every Item in the collection
+	 */
+	private Color color = Color.orange;
+
+	/**
+	 * The lower left point of the first Item in the collection
+	 */
+	private int x, y;
+
+	/**
+	 * The index where the selected Item is, or -1 if none is selected
+	 */
+	private int selected = -1;
+
+	/**
+	 * The indices of the Items highlighted all together, if any
+	 */
+	private java.util.BitSet highlighted;
+
+	/**
+	 * The sorter used by the last sort, if any
+	 */
+	private ExternalSorter lastSort;
+
+	/**
+	 * Starts an empty collection in a new temporary file.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public FileDataCollection(int someX, int someY) throws IOException
+	{
+		x = someX;
+		y = someY;
+		open(File.createTempFile("collection", ".dat"));
+	}
+
+	/**
+	 * Starts a collection holding the values of the given file, which
+	 * must be a sequence of ints as written by DataOutputStream.
+	 * The file is copied, never changed.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public FileDataCollection(File source, int someX, int someY) throws IOException
+	{
+		this(someX, someY);
+		FileInputStream input = new FileInputStream(source);
+		try {
+			FileChannel from = input.getChannel();
+			long length = from.size() & ~3L;	// Whole values only
+			if (length / 4 > Integer.MAX_VALUE)
+				throw new IOException(source + " has too many values");
+			for (long done = 0; done < length; )
+				done += from.transferTo(done, length - done, channel);
+			written = (int) (length / 4);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Uses the given file from now on, deleting the old one.
+	 */
+	private void open(File someFile) throws IOException
+	{
+		if (access != null) {
+			access.close();
+			file.delete();
+		}
+		file = someFile;
+		file.deleteOnExit();
+		access = new RandomAccessFile(file, "rw");
+		channel = access.getChannel();
+		written = (int) (channel.size() / 4);
+		windowLength = 0;
+	}
+
+	/**
+	 * Closes and deletes the file holding the values. The collection
+	 * cannot be used any more.
+	 */
+	public void close()
+	{
+		try {
+			access.close();
+		} catch (IOException e) {}			//	Deleting it is all that is left
+		file.delete();
+	}
+
+	/**
+	 * Sets the color of every Item in the collection.
+	 */
+	public void setColor(Color someColor)
+	{
+		color = someColor;
+	}
+
+	/**
+	 * Returns the number of Items in the collection.
+	 */
+	public int size()
+	{
+		return written + appended.position() / 4;
+	}
+
+	/**
+	 * Returns a view of the Item at the given position without selecting it.
+	 */
+	public Item get(int index)
+	{
+		checkIndex(index);
+		return view(index);
+	}
+
+	/**
+	 * Returns the value at the given position, read from the file.
+	 */
+	public int getValue(int index)
+	{
+		checkIndex(index);
+		return readValue(index);
+	}
+
+	/**
+	 * Writes out the values waiting in the append buffer.
+	 */
+	private void flush()
+	{
+		if (appended.position() > 0) {
+			try {
+				appended.flip();
+				long position = 4L * written;
+				while (appended.hasRemaining())
+					position += channel.write(appended, position);
+				written = (int) (position / 4);
+				appended.clear();
+			} catch (IOException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value at the given position, reading a new window
+	 * of values from the file when the position is not in the window.
+	 */
+	private int readValue(int index)
+	{
+		if (index >= written)				// Not written out yet
+			return appended.getInt(4 * (index - written));
+		if (index < windowStart || index >= windowStart + windowLength) {
+			try {
+				window.clear();
+				window.limit((int) Math.min(BUFFER, 4L * (written - index)));
+				ExternalSorter.readFully(channel, window, 4L * index);
+				windowStart = index;
+				windowLength = window.limit() / 4;
+			} catch (IOException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+		return window.getInt(4 * (index - windowStart));
+	}
+
+	/**
+	 * Selects the item at the given index, or nothing if the index is -1
+	 * or past the end, clearing any other highlighting.
+	 */
+	private void changeSelected(int newSelected)
+	{
+		if (highlighted != null) {
+			highlighted = null;
+			highlightChanged(0, size());
+		}
+		if (selected != -1) {				//	Told once it is no longer selected
+			int old = selected;
+			selected = -1;
+			highlightChanged(old, old + 1);
+		}
+		if (newSelected != -1 && newSelected < size()) {
+			selected = newSelected;
+			highlightChanged(selected, selected + 1);
+		}
+	}
+
+	/**
+	 * Resets the selected item to the beginning of the collection.
+	 */
+	public void reset()
+	{
+		changeSelected(0);
+	}
+
+	/**
+	 * Defines the selected item to be the given item, if it is a view
+	 * that came from this collection.
+	 */
+	public void reset(Item someItem)
+	{
+		changeSelected(-1);
+		if (someItem instanceof ItemView && ((ItemView) someItem).belongsTo(this))
+			changeSelected(((ItemView) someItem).getIndex());
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be views that came
+	 * from this collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public void highlight(Item [] someItems)
+	{
+		changeSelected(-1);
+		highlighted = new java.util.BitSet();
+		for (int i = 0; i < someItems.length; i++)
+			if (someItems[i] instanceof ItemView && ((ItemView) someItems[i]).belongsTo(this))
+				highlighted.set(((ItemView) someItems[i]).getIndex());
+		highlightChanged(0, size());
+	}
+
+	/**
+	 * Adds the value of the given Item to the end of the collection.
+	 * That item becomes the item currently selected.
+	 */
+	public void add(Item someItem)
+	{
+		if (size() == Integer.MAX_VALUE)
+			throw new IllegalStateException("The collection is full");
+		if (! appended.hasRemaining())
+			flush();
+		appended.putInt(someItem.getValue());
+		itemsChanged(size() - 1, size());
+		changeSelected(size() - 1);
+	}
+
+	/**
+	 * Appends the given values to the end of the collection without
+	 * making any Items; every Item keeps the color of the collection.
+	 * The last of them becomes the item currently selected.
+	 */
+	public void addAll(int [] someValues, Color someColor)
+	{
+		if (someValues.length == 0)
+			return;
+		if (size() > Integer.MAX_VALUE - someValues.length)
+			throw new IllegalStateException("The collection is full");
+		for (int i = 0; i < someValues.length; i++) {
+			if (! appended.hasRemaining())
+				flush();
+			appended.putInt(someValues[i]);
+		}
+		itemsChanged(size() - someValues.length, size());
+		changeSelected(size() - 1);
+	}
+
+	/**
+	 * Paints the Items that fall inside the area being painted,
+	 * from left to right.
+	 */
+	public void paint(Graphics pane)
+	{
+		int first = 0, last = size();
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only read what shows
+			first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+									   / Item.OVERALL_WIDTH + 2);
+		}
+		Item bar = new Item();
+		for (int i = first; i < last; i++) {
+			bar.setup(0, 0, readValue(i), color);
+			bar.highlight(i == selected || (highlighted != null && highlighted.get(i)));
+			bar.paint(pane, x + i * Item.OVERALL_WIDTH, y);
+		}
+	}
+
+	/**
+	 * Determines whether there is a selected item.
+	 */
+	public boolean hasNext()
+	{
+		return selected > -1;
+	}
+
+	/**
+	 * Looks the position up in the selection and the highlighted set,
+	 * since the Items are only views.
+	 */
+	public boolean isHighlighted(int index)
+	{
+		checkIndex(index);
+		return index == selected || (highlighted != null && highlighted.get(index));
+	}
+
+	/**
+	 * Returns a view of the selected Item (if any Item is selected)
+	 * and selects the next one, if there is one.
+	 * @return selected Item or null, if no Item is selected
+	 */
+	public Item next()
+	{
+		Item result = null;
+		if (selected > -1) {
+			result = view(selected);
+			changeSelected(selected + 1);
+		}
+		else
+			changeSelected(-1);
+		return result;
+	}
+
+	/**
+	 * Returns a view of the Item at the given position.
+	 */
+	private Item view(int index)
+	{
+		return new ItemView(this, index, readValue(index), color);
+	}
+
+	/**
+	 * Removes the selected item (if any) by moving every value after
+	 * it one place to the left. No item is selected any more.
+	 */
+	public void remove()
+	{
+		if (selected > -1) {
+			int removed = selected;
+			changeSelected(-1);
+			flush();
+			try {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+				long from = 4L * (removed + 1), end = 4L * written;
+				while (from < end) {
+					buffer.clear();
+					buffer.limit((int) Math.min(BUFFER, end - from));
+					ExternalSorter.readFully(channel, buffer, from);
+					buffer.flip();
+					long to = from - 4;
+					while (buffer.hasRemaining())
+						to += channel.write(buffer, to);
+					from += buffer.limit();
+				}
+				written--;
+				channel.truncate(4L * written);
+			} catch (IOException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+			windowLength = 0;
+			itemsChanged(removed, size() + 1);	// The rest moved left
+		}
+	}
+
+	/**
+	 * Writes the values of the given Items over those of the collection,
+	 * in order. No item is selected any more.
+	 */
+	public void setOrder(Item [] someItems)
+	{
+		if (someItems.length != size())
+			throw new IllegalArgumentException("Expected " + size() + " Items, not "
+											   + someItems.length);
+		flush();
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER);
+			long position = 0;
+			for (int i = 0; i < someItems.length; ) {
+				buffer.clear();
+				while (buffer.hasRemaining() && i < someItems.length)
+					buffer.putInt(someItems[i++].getValue());
+				buffer.flip();
+				while (buffer.hasRemaining())
+					position += channel.write(buffer, position);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+		windowLength = 0;
+		changeSelected(-1);
+		itemsChanged(0, size());
+	}
+
+	/**
+	 * Sorts the values with an external merge sort, using the given
+	 * strategy to sort each run in memory. No item is selected any more.
+	 */
+	public void sortInPlace(SortStrategy strategy)
+	{
+		prepareSort();
+		try {
+			ExternalSorter sorter = new ExternalSorter(strategy);
+			useSorted(sortedCopy(sorter), sorter);
+		} catch (IOException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Gets the collection ready for sortedCopy by writing out the values
+	 * not yet in the file; call it on the thread that changes the
+	 * collection.
+	 */
+	public void prepareSort()
+	{
+		flush();
+	}
+
+	/**
+	 * Sorts the values into a new temporary file with the given sorter
+	 * and returns it, without changing the collection, so the sort can
+	 * run on a thread of its own while the collection is read. Nothing
+	 * may change the collection in the meantime, and prepareSort must
+	 * have been called since it last changed.
+	 */
+	public File sortedCopy(ExternalSorter sorter) throws IOException
+	{
+		return sorter.sort(channel, written, file.getParentFile());
+	}
+
+	/**
+	 * Uses the values of the given file, made by sortedCopy with the
+	 * given sorter, in place of those of the collection.
+	 * No item is selected any more.
+	 */
+	public void useSorted(File sorted, ExternalSorter sorter) throws IOException
+	{
+		changeSelected(-1);
+		open(sorted);
+		lastSort = sorter;
+		itemsChanged(0, size());
+	}
+
+	/**
+	 * Returns the sorter used by the last sort, or null if there was none.
+	 */
+	public ExternalSorter getLastSort()
+	{
+		return lastSort;
+	}
+
+}	// end FileDataCollection
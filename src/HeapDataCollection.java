@@ -0,0 +1,536 @@
+import java.awt.*;							//	AWT = "Abstract Window Toolkit"
+
+/**
+ * A DataCollection for finding the tallest or shortest Item and removing
+ * it, over and over, without scanning or shifting the whole collection.
+ * Items stay in slots in the order in which they were added; removing
+ * one only empties its slot. A Fenwick tree counts the Items left in the
+ * slots, so the slot of the Item at any position is found, and the
+ * position of any slot counted, in O(log n). Two indexed binary heaps
+ * of slots, one with the tallest Item on top and one with the shortest,
+ * answer Maximum and Minimum and lose a removed Item in O(log n).
+ * Once half the slots are empty, the Items are moved together again.
+ */
+public class HeapDataCollection extends AbstractDataCollection
+{
+	/**
+	 * The Items in the order in which they were added, with null in
+	 * the slots of removed Items, and the values of the Items
+	 */
+	private Item [] slots;
+	private int [] values;
+
+	/**
+	 * The number of slots used so far, and how many still hold an Item
+	 */
+	private int used, size;
+
+	/**
+	 * tree[i] counts the Items in the slots (i - (i & -i), i]
+	 */
+	private int [] tree;
+
+	/**
+	 * Heaps of the slots of the Items, tallest and shortest on top
+	 */
+	private SlotHeap tallest, shortest;
+
+	/**
+	 * The lower left point of the first Item in the collection
+	 */
+	private int x, y;
+
+	/**
+	 * The slot of the selected Item, or -1 if none is selected
+	 */
+	private int selected = -1;
+
+	/**
+	 * Items highlighted all together, if any
+	 */
+	private Item [] highlighted;
+
+	/**
+	 * Sets initial capacity to 16 Items; none are in the collection,
+	 * none are selected.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public HeapDataCollection(int someX, int someY)
+	{
+		slots = new Item[16];
+		values = new int[16];
+		tree = new int[17];
+		tallest = new SlotHeap(true, 16);
+		shortest = new SlotHeap(false, 16);
+		x = someX;
+		y = someY;
+	}
+
+	/**
+	 * Selects the Item in the given slot, or nothing if the slot is -1,
+	 * clearing any other highlighting.
+	 */
+	private void changeSelected(int newSelected)
+	{
+		if (highlighted != null) {
+			for (int i = 0; i < highlighted.length; i++)
+				highlighted[i].highlight(false);
+			highlighted = null;
+			highlightChanged(0, size);
+		}
+		if (selected != -1) {
+			slots[selected].highlight(false);
+			int index = positionOf(selected);
+			highlightChanged(index, index + 1);
+		}
+		selected = newSelected;
+		if (selected != -1) {
+			slots[selected].highlight(true);
+			int index = positionOf(selected);
+			highlightChanged(index, index + 1);
+		}
+	}
+
+	//
+	//	Counting the Items in the slots
+	//
+
+	/**
+	 * Adds the given number to the count of Items in the given slot.
+	 */
+	private void count(int slot, int delta)
+	{
+		for (int i = slot + 1; i < tree.length; i += i & -i)
+			tree[i] += delta;
+	}
+
+	/**
+	 * Returns the number of Items in the slots before the given one,
+	 * which is the position of the Item in that slot.
+	 */
+	private int positionOf(int slot)
+	{
+		int result = 0;
+		for (int i = slot; i > 0; i -= i & -i)
+			result += tree[i];
+		return result;
+	}
+
+	/**
+	 * Returns the slot of the Item at the given position.
+	 */
+	private int slotOf(int index)
+	{
+		int slot = 0, left = index + 1;		//	Walk down the tree to the slot
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1)
+			if (slot + step < tree.length && tree[slot + step] < left) {
+				slot += step;
+				left -= tree[slot];
+			}
+		return slot;
+	}
+
+	/**
+	 * Returns the first slot holding an Item from the given one on,
+	 * or used if there is none.
+	 */
+	private int nextSlot(int slot)
+	{
+		while (slot < used && slots[slot] == null)
+			slot++;
+		return slot;
+	}
+
+	/**
+	 * Counts all the Items in the slots again, in linear time.
+	 */
+	private void recount()
+	{
+		java.util.Arrays.fill(tree, 0);
+		for (int i = 1; i < tree.length; i++) {
+			if (i <= used && slots[i - 1] != null)
+				tree[i]++;
+			int parent = i + (i & -i);
+			if (parent < tree.length)
+				tree[parent] += tree[i];
+		}
+	}
+
+	/**
+	 * Makes room for at least the given number of slots, at least
+	 * doubling the arrays when they have to grow.
+	 */
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity > slots.length) {
+			capacity = Math.max(capacity, slots.length * 2);
+			Item [] temp = new Item[capacity];
+			System.arraycopy(slots, 0, temp, 0, used);
+			slots = temp;
+			int [] moved = new int[capacity];
+			System.arraycopy(values, 0, moved, 0, used);
+			values = moved;
+			tree = new int[capacity + 1];
+			recount();
+			tallest.grow(capacity);
+			shortest.grow(capacity);
+		}
+	}
+
+	/**
+	 * Moves the Items together into the first slots, in order, and
+	 * builds the tree and the heaps again. Nothing must be selected.
+	 */
+	private void compact()
+	{
+		int slot = 0;
+		for (int i = 0; i < used; i++)
+			if (slots[i] != null) {
+				slots[slot] = slots[i];
+				values[slot] = values[i];
+				slots[slot].setPosition(slot);
+				slot++;
+			}
+		java.util.Arrays.fill(slots, slot, used, null);
+		used = slot;
+		rebuild();
+	}
+
+	/**
+	 * Builds the tree and the heaps again from the first used slots,
+	 * which all hold Items.
+	 */
+	private void rebuild()
+	{
+		recount();
+		tallest.heapify(used);
+		shortest.heapify(used);
+	}
+
+	//
+	//	The DataCollection
+	//
+
+	public int size()
+	{
+		return size;
+	}
+
+	public Item get(int index)
+	{
+		checkIndex(index);
+		return slots[slotOf(index)];
+	}
+
+	public int getValue(int index)
+	{
+		checkIndex(index);
+		return values[slotOf(index)];
+	}
+
+	/**
+	 * Returns the position of the left-most tallest Item, or -1 if
+	 * the collection is empty, in O(log n).
+	 */
+	public int indexOfMaximum()
+	{
+		return size == 0 ? -1 : positionOf(tallest.top());
+	}
+
+	/**
+	 * Returns the position of the left-most shortest Item, or -1 if
+	 * the collection is empty, in O(log n).
+	 */
+	public int indexOfMinimum()
+	{
+		return size == 0 ? -1 : positionOf(shortest.top());
+	}
+
+	/**
+	 * Resets the selected Item to the first one.
+	 */
+	public void reset()
+	{
+		changeSelected(size > 0 ? nextSlot(0) : -1);
+	}
+
+	/**
+	 * Defines the selected Item to be the given Item, if it is in the
+	 * collection. Items remember their slot, so this is constant time.
+	 */
+	public void reset(Item someItem)
+	{
+		changeSelected(-1);
+		if (someItem != null) {
+			int slot = someItem.getPosition();
+			if (slot >= 0 && slot < used && slots[slot] == someItem)
+				changeSelected(slot);
+			else
+				for (slot = 0; slot < used; slot++)		//	Put in another collection since
+					if (slots[slot] == someItem) {
+						someItem.setPosition(slot);
+						changeSelected(slot);
+						break;
+					}
+		}
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be Items of the
+	 * collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public void highlight(Item [] someItems)
+	{
+		changeSelected(-1);
+		highlighted = new Item[someItems.length];
+		System.arraycopy(someItems, 0, highlighted, 0, someItems.length);
+		for (int i = 0; i < highlighted.length; i++)
+			highlighted[i].highlight(true);
+		highlightChanged(0, size);
+	}
+
+	/**
+	 * Adds the given Item after all the others, in O(log n).
+	 * That Item becomes the Item currently selected.
+	 */
+	public void add(Item someItem)
+	{
+		ensureCapacity(used + 1);
+		int slot = used++;
+		slots[slot] = someItem;
+		values[slot] = someItem.getValue();
+		someItem.setPosition(slot);
+		count(slot, 1);
+		tallest.insert(slot);
+		shortest.insert(slot);
+		size++;
+		itemsChanged(size - 1, size);
+		changeSelected(slot);
+	}
+
+	/**
+	 * Paints the Items that fall inside the area being painted,
+	 * from left to right.
+	 */
+	public void paint(Graphics pane)
+	{
+		int first = 0, last = size;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+									   / Item.OVERALL_WIDTH + 2);
+		}
+		if (first >= last)
+			return;
+		int slot = slotOf(first);
+		for (int i = first; i < last; i++) {
+			slots[slot].paint(pane, x + i * Item.OVERALL_WIDTH, y);
+			slot = nextSlot(slot + 1);
+		}
+	}
+
+	public boolean hasNext()
+	{
+		return selected > -1;
+	}
+
+	/**
+	 * Returns the selected Item, if any, and selects the one after it.
+	 */
+	public Item next()
+	{
+		Item result = null;
+		if (selected > -1) {
+			result = slots[selected];
+			int slot = nextSlot(selected + 1);
+			changeSelected(slot < used ? slot : -1);
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the selected Item (if any) in O(log n), amortized over
+	 * the times the Items are moved together.
+	 * No Item is selected any more.
+	 */
+	public void remove()
+	{
+		if (selected > -1) {
+			int slot = selected, index = positionOf(slot);
+			changeSelected(-1);
+			tallest.delete(slot);
+			shortest.delete(slot);
+			count(slot, -1);
+			slots[slot] = null;
+			size--;
+			if (size < used / 2)			//	Half the slots are empty
+				compact();
+			itemsChanged(index, size + 1);	//	The rest moved left
+		}
+	}
+
+	/**
+	 * Returns a new array holding the Items of the collection,
+	 * in the order in which they were added.
+	 */
+	public Item [] toArray()
+	{
+		Item [] result = new Item[size];
+		for (int slot = nextSlot(0), i = 0; i < size; slot = nextSlot(slot + 1))
+			result[i++] = slots[slot];
+		return result;
+	}
+
+	/**
+	 * Puts the Items in the order of the given array, which must hold
+	 * exactly the Items of the collection. No Item is selected any more.
+	 */
+	public void setOrder(Item [] someItems)
+	{
+		if (someItems.length != size)
+			throw new IllegalArgumentException("Expected " + size + " Items, not "
+											   + someItems.length);
+		changeSelected(-1);
+		java.util.Arrays.fill(slots, 0, used, null);
+		for (int i = 0; i < size; i++) {
+			slots[i] = someItems[i];
+			values[i] = someItems[i].getValue();
+			slots[i].setPosition(i);
+		}
+		used = size;
+		rebuild();
+		itemsChanged(0, size);
+	}
+
+	/**
+	 * Sorts the Items from smallest to largest with the given strategy,
+	 * then builds the tree and the heaps again in linear time.
+	 * No Item is selected any more.
+	 */
+	public void sortInPlace(SortStrategy strategy)
+	{
+		changeSelected(-1);
+		compact();
+		strategy.sort(slots, 0, used);
+		for (int i = 0; i < used; i++) {
+			values[i] = slots[i].getValue();
+			slots[i].setPosition(i);
+		}
+		rebuild();
+		itemsChanged(0, size);
+	}
+
+	/**
+	 * A binary heap of slots that can also take out any slot, because
+	 * it knows where in the heap each slot is.
+	 */
+	private class SlotHeap
+	{
+		private boolean tallestOnTop;
+		private int [] heap;				// The slots, in heap order
+		private int [] place;				// Where each slot is in heap, or -1
+		private int length;
+
+		SlotHeap(boolean someTallestOnTop, int capacity)
+		{
+			tallestOnTop = someTallestOnTop;
+			heap = new int[capacity];
+			place = new int[capacity];
+		}
+
+		/**
+		 * Determines whether the first slot belongs above the second:
+		 * its Item is taller (or shorter), or as tall and further left.
+		 */
+		private boolean above(int first, int second)
+		{
+			int a = values[first], b = values[second];
+			if (a != b)
+				return tallestOnTop ? a > b : a < b;
+			return first < second;
+		}
+
+		int top()
+		{
+			return heap[0];
+		}
+
+		void grow(int capacity)
+		{
+			int [] temp = new int[capacity];
+			System.arraycopy(heap, 0, temp, 0, length);
+			heap = temp;
+			temp = new int[capacity];
+			System.arraycopy(place, 0, temp, 0, place.length);
+			place = temp;
+		}
+
+		/**
+		 * Makes a heap of the given number of first slots in linear time.
+		 */
+		void heapify(int count)
+		{
+			length = count;
+			for (int i = 0; i < count; i++) {
+				heap[i] = i;
+				place[i] = i;
+			}
+			for (int i = count / 2 - 1; i >= 0; i--)
+				down(i);
+		}
+
+		void insert(int slot)
+		{
+			heap[length] = slot;
+			place[slot] = length;
+			up(length++);
+		}
+
+		void delete(int slot)
+		{
+			int at = place[slot];
+			place[slot] = -1;
+			if (at == --length)
+				return;
+			int last = heap[length];		//	The last slot takes its place
+			heap[at] = last;
+			place[last] = at;
+			up(at);
+			down(place[last]);
+		}
+
+		private void up(int at)
+		{
+			int slot = heap[at];
+			while (at > 0 && above(slot, heap[(at - 1) / 2])) {
+				heap[at] = heap[(at - 1) / 2];
+				place[heap[at]] = at;
+				at = (at - 1) / 2;
+			}
+			heap[at] = slot;
+			place[slot] = at;
+		}
+
+		private void down(int at)
+		{
+			int slot = heap[at];
+			while (2 * at + 1 < length) {
+				int child = 2 * at + 1;
+				if (child + 1 < length && above(heap[child + 1], heap[child]))
+					child++;
+				if (! above(heap[child], slot))
+					break;
+				heap[at] = heap[child];
+				place[heap[at]] = at;
+				at = child;
+			}
+			heap[at] = slot;
+			place[slot] = at;
+		}
+
+	}	// end SlotHeap
+
+}	// end HeapDataCollection
@@ -0,0 +1,29 @@
+/**
+ * A merge sort that stops splitting when a range gets short and
+ * insertion sorts it instead, which saves most of the recursion
+ * and merging on the smallest ranges.
+ * The sort is stable.
+ */
+public class HybridSorter extends MergeSorter
+{
+	/**
+	 * Ranges of at most this many Items are insertion sorted
+	 */
+	public static final int CUTOFF = 24;
+
+	public HybridSorter()
+	{
+		super(CUTOFF);
+	}
+
+	public String getName()
+	{
+		return "Hybrid";
+	}
+
+	public SortStrategy newInstance()
+	{
+		return new HybridSorter();
+	}
+
+}	// end HybridSorter
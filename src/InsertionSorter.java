@@ -0,0 +1,119 @@
+/**
+ * Sorts a range of an array of Items using insertion sort.
+ * It takes time proportional to the square of the number of Items
+ * in the worst case, but it is the fastest for a handful of Items
+ * and for ranges that are nearly in order.
+ * The sort is stable. Ranges longer than a limit are handed to the
+ * hybrid merge sort instead (which insertion sorts the short ranges
+ * it splits them into), so no sort takes quadratic time on many Items.
+ */
+public class InsertionSorter implements SortStrategy
+{
+	/**
+	 * Longest range insertion sorted as a whole
+	 */
+	public static final int LIMIT = 1 << 10;
+
+	/**
+	 * Number of comparisons made by the last sort
+	 */
+	private long comparisons;
+
+	public String getName()
+	{
+		return "Insertion";
+	}
+
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	public boolean supportsKeys(int lowest, int highest)
+	{
+		return true;
+	}
+
+	public long getComparisons()
+	{
+		return comparisons;
+	}
+
+	public SortStrategy newInstance()
+	{
+		return new InsertionSorter();
+	}
+
+	public void sort(Item [] items, int from, int to)
+	{
+		if (to - from > LIMIT) {
+			SortStrategy merger = new HybridSorter();
+			merger.sort(items, from, to);
+			comparisons = merger.getComparisons();
+			return;
+		}
+		comparisons = insertionSort(items, from, to, null, from);
+	}
+
+	/**
+	 * Sorts the keys in positions from (inclusive) to to (exclusive)
+	 * the same way, carrying the satellite values along.
+	 */
+	public void sort(int [] keys, int [] satellite, int from, int to)
+	{
+		if (to - from > LIMIT) {
+			MergeSorter merger = new HybridSorter();
+			merger.sort(keys, satellite, from, to);
+			comparisons = merger.getComparisons();
+			return;
+		}
+		comparisons = 0;
+		for (int i = from + 1; i < to; i++) {
+			int key = keys[i], other = satellite[i];
+			int j = i;
+			while (j > from) {
+				comparisons++;
+				if (keys[j - 1] <= key)
+					break;						// Found its place
+				keys[j] = keys[j - 1];			// Shift the larger ones right
+				satellite[j] = satellite[j - 1];
+				j--;
+			}
+			keys[j] = key;
+			satellite[j] = other;
+		}
+	}
+
+	/**
+	 * Sorts the range [from, to) of the given array by inserting
+	 * each Item among the sorted ones to its left.
+	 * @param trace records every step, if not null
+	 * @param base the position traced positions are counted from
+	 * @return the number of comparisons made
+	 */
+	static long insertionSort(Item [] items, int from, int to,
+							  SortTrace trace, int base)
+	{
+		long count = 0;
+		for (int i = from + 1; i < to; i++) {
+			Item current = items[i];
+			int j = i;
+			while (j > from) {
+				count++;
+				if (trace != null)
+					trace.compare(j - 1 - base, i - base);
+				if (items[j - 1].compareTo(current) <= 0)
+					break;						// Found its place
+				if (trace != null)
+					trace.move(j - base, j - 1 - base);
+				items[j] = items[j - 1];		// Shift the larger ones right
+				j--;
+			}
+			if (trace != null && j != i)
+				trace.write(j - base, current.getValue());
+			items[j] = current;
+		}
+		return count;
+	}
+
+}	// end InsertionSorter
@@ -99,13 +99,30 @@ public class Item implements Comparable<Item>
 	}
 
 	//
-	//	Resetting the color of an item
+	//	Accessing the color of an item
 	//
+	public Color getColor()
+	{
+		return color;
+	}
 	public void setColor(Color someColor)
 	{
 		color = someColor;
 	}
 
+	//
+	//	Accessing where the item was last put in a collection;
+	//		only a hint, which the collection checks before trusting
+	//
+	int getPosition()
+	{
+		return position;
+	}
+	void setPosition(int somePosition)
+	{
+		position = somePosition;
+	}
+
 	//
 	//	Highlighting/de-highlighting an item
 	//
@@ -113,11 +130,34 @@ public class Item implements Comparable<Item>
 	{
 		hilite = someHilite;
 	}
+	public boolean isHighlighted()
+	{
+		return hilite;
+	}
 
 	//
-	//	Drawing an item
+	//	Drawing an item at its own location
 	//
 	public void paint(Graphics pane)
+	{
+		paint(pane, x, y);
+	}
+
+	//
+	//	Drawing an item with its lower left corner at the given point,
+	//		which lets a collection lay its items out as it paints them
+	//
+	public void paint(Graphics pane, int x, int y)
+	{
+		if (sprites == null || ! sprites.paint(pane, value, color, hilite, x, y))
+			draw(pane, x, y, value, color, hilite);
+	}
+
+	//
+	//	Drawing a bar with the given value, color and highlight,
+	//		with its lower left corner at the given point
+	//
+	static void draw(Graphics pane, int x, int y, int value, Color color, boolean hilite)
 	{
 		pane.setColor(Color.black);			//	Drawing the "bottom line"
 		pane.drawLine(x-DELTA, y, x+WIDTH+DELTA, y);
@@ -129,6 +169,19 @@ public class Item implements Comparable<Item>
 						WIDTH - 3, HEIGHT*value - 3,
 						!hilite);
 	}
+
+	//
+	//	Accessing the pictures of bars that every item paints from,
+	//		if any (null to draw every bar line by line)
+	//
+	public static BarSprites getSprites()
+	{
+		return sprites;
+	}
+	public static void setSprites(BarSprites someSprites)
+	{
+		sprites = someSprites;
+	}
 	
 	public int compareTo(Item item) {
 		Item that = item;
@@ -142,5 +195,8 @@ public class Item implements Comparable<Item>
 	private int value;						//		the value
 	private Color color;					//		and the color of an item
 	private boolean hilite;					//	To highlight the item
+	private int position;					//	Where a collection last put it
+
+	private static BarSprites sprites;		//	Pictures of bars, shared
 
 }	//	end Item
\ No newline at end of file
@@ -0,0 +1,50 @@
+import java.awt.Color;
+
+/**
+ * An Item handed out by a DataCollection that does not keep Item
+ * objects of its own. It remembers which collection it came from and
+ * at which position, so the collection can recognize it when it is
+ * given back (for instance, to reset the selection to it).
+ * A view is only good until its collection changes.
+ */
+public class ItemView extends Item
+{
+	/**
+	 * The collection the view came from
+	 */
+	private DataCollection owner;
+
+	/**
+	 * The position of the Item in the collection
+	 */
+	private int index;
+
+	/**
+	 * Instantiates a view of the Item at the given position of the
+	 * given collection, with the given value and color.
+	 */
+	public ItemView(DataCollection someOwner, int someIndex,
+					int someValue, Color someColor)
+	{
+		super(someValue, someColor);
+		owner = someOwner;
+		index = someIndex;
+	}
+
+	/**
+	 * Determines whether the view came from the given collection.
+	 */
+	public boolean belongsTo(DataCollection someCollection)
+	{
+		return owner == someCollection;
+	}
+
+	/**
+	 * Returns the position of the Item in its collection.
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+}	// end ItemView
@@ -0,0 +1,85 @@
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Times the array and the linked collections on the same mixed work:
+ * selecting and removing every Item of even height, going through all
+ * the Items in order (by position and with an iterator), and many
+ * random selections each followed by a removal or an insertion right
+ * after the selected Item. The array collection cannot insert, so it
+ * adds at the end instead, which is the cheapest it can do.
+ * Run it with
+ *		java LinkedBenchmark [Items] [selections] [rounds]
+ * (100000 Items, 50000 selections and 2 rounds by default); every
+ * round prints the times of both collections in milliseconds, and the
+ * first round includes warming up.
+ */
+public class LinkedBenchmark
+{
+	public static void main(String [] arguments)
+	{
+		int items = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 100000;
+		int selections = arguments.length > 1 ? Integer.parseInt(arguments[1]) : 50000;
+		int rounds = arguments.length > 2 ? Integer.parseInt(arguments[2]) : 2;
+
+		Random random = new Random(1);
+		int [] values = new int[items];
+		for (int i = 0; i < items; i++)
+			values[i] = 1 + random.nextInt(16);
+
+		System.out.println(items + " Items, " + selections + " selections");
+		for (int round = 1; round <= rounds; round++) {
+			time("array", new ArrayDataCollection(0, 0), values, selections);
+			time("linked", new LinkedDataCollection(0, 0), values, selections);
+		}
+	}
+
+	/**
+	 * Runs the work on the given empty collection and prints its times.
+	 */
+	private static void time(String name, DataCollection collection, int [] values, int selections)
+	{
+		collection.addAll(values, Color.orange);
+
+		long start = System.nanoTime();			//	Remove every even Item
+		Item [] all = collection.toArray();
+		for (int i = 0; i < all.length; i++)
+			if (all[i].getValue() % 2 == 0) {
+				collection.reset(all[i]);
+				collection.remove();
+			}
+		long removing = System.nanoTime() - start;
+
+		start = System.nanoTime();				//	Go through them in order
+		long sum = 0;
+		for (int i = 0; i < collection.size(); i++)
+			sum += collection.getValue(i);
+		for (Item item : collection)
+			sum += item.getValue();
+		long scanning = System.nanoTime() - start;
+
+		start = System.nanoTime();				//	Select, then remove or insert
+		Random random = new Random(2);
+		Item [] live = collection.toArray();
+		for (int i = 0; i < selections && live.length > 0; i++) {
+			int at = random.nextInt(live.length);
+			if (live[at] == null)
+				continue;						//	Already removed
+			collection.reset(live[at]);
+			if (random.nextBoolean()) {
+				collection.remove();
+				live[at] = null;
+			}
+			else if (collection instanceof LinkedDataCollection)
+				((LinkedDataCollection) collection).insert(new Item(3, Color.orange));
+			else
+				collection.add(new Item(3, Color.orange));
+		}
+		long mixing = System.nanoTime() - start;
+
+		System.out.println(name + ": remove even " + removing / 1000000 + " ms, two scans "
+						   + scanning / 1000000 + " ms, select and remove or insert "
+						   + mixing / 1000000 + " ms (" + collection.size() + " Items, sum " + sum + ")");
+	}
+
+}	// end LinkedBenchmark
@@ -0,0 +1,418 @@
+import java.awt.*;							//	AWT = "Abstract Window Toolkit"
+
+/**
+ * A DataCollection kept as a doubly linked list, so that removing the
+ * selected Item, or inserting one right after it, takes constant time
+ * instead of shifting every Item after it.
+ * The links are not objects: the nodes are numbers, and the Items and
+ * the links of every node are kept in three parallel arrays, with the
+ * nodes of removed Items kept in a free list for the next ones added.
+ * That costs two ints per Item over an array of Items.
+ * Finding the Item at a position walks the list, from whichever of the
+ * first Item, the last Item or the last position found is closest, so
+ * going through the Items in order is still constant time per Item.
+ */
+public class LinkedDataCollection extends AbstractDataCollection
+{
+	/**
+	 * The Item of every node, and the nodes before and after it
+	 * (-1 at either end of the list); next also links the free list
+	 */
+	private Item [] items;
+	private int [] next, previous;
+
+	/**
+	 * The first and last nodes of the list, the first free node
+	 * (-1 when there are none), and how many nodes were ever used
+	 */
+	private int first = -1, last = -1, free = -1, used;
+
+	/**
+	 * The number of Items currently in the collection
+	 */
+	private int size;
+
+	/**
+	 * The lower left point of the first Item in the collection
+	 */
+	private int x, y;
+
+	/**
+	 * The node of the selected Item, or -1 if none is selected, and its
+	 * position, or -1 if that is not known
+	 */
+	private int selected = -1, selectedIndex = -1;
+
+	/**
+	 * Items highlighted all together, if any
+	 */
+	private Item [] highlighted;
+
+	/**
+	 * The last position looked up and its node, or -1 when the list
+	 * changed since in a way that moved Items
+	 */
+	private int foundIndex = -1, foundNode;
+
+	/**
+	 * Sets initial capacity to 16 Items; none are in the collection,
+	 * none are selected.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public LinkedDataCollection(int someX, int someY)
+	{
+		items = new Item[16];
+		next = new int[16];
+		previous = new int[16];
+		x = someX;
+		y = someY;
+	}
+
+	/**
+	 * Selects the Item of the given node at the given position, or
+	 * nothing if the node is -1, clearing any other highlighting.
+	 * The listener hears of the old and the new position; nodes do not
+	 * know their positions, so where either is not known it hears that
+	 * all of them may have changed.
+	 * @param newIndex the position of the node, or -1 if not known
+	 */
+	private void changeSelected(int newSelected, int newIndex)
+	{
+		boolean everywhere = false;
+		if (highlighted != null) {
+			for (int i = 0; i < highlighted.length; i++)
+				highlighted[i].highlight(false);
+			highlighted = null;
+			everywhere = true;
+		}
+		if (selected != -1) {
+			items[selected].highlight(false);
+			if (selectedIndex == -1)
+				everywhere = true;
+			else
+				highlightChanged(selectedIndex, selectedIndex + 1);
+		}
+		selected = newSelected;
+		selectedIndex = newSelected == -1 ? -1 : newIndex;
+		if (selected != -1) {
+			items[selected].highlight(true);
+			if (selectedIndex == -1)
+				everywhere = true;
+			else
+				highlightChanged(selectedIndex, selectedIndex + 1);
+		}
+		if (everywhere)
+			highlightChanged(0, size);
+	}
+
+	/**
+	 * Returns a node for the given Item, taken from the free list if
+	 * there is one there, growing the arrays when they are full.
+	 */
+	private int newNode(Item someItem)
+	{
+		int node = free;
+		if (node != -1)
+			free = next[node];
+		else {
+			if (used == items.length) {
+				int capacity = items.length * 2;
+				Item [] temp = new Item[capacity];
+				System.arraycopy(items, 0, temp, 0, used);
+				items = temp;
+				int [] links = new int[capacity];
+				System.arraycopy(next, 0, links, 0, used);
+				next = links;
+				links = new int[capacity];
+				System.arraycopy(previous, 0, links, 0, used);
+				previous = links;
+			}
+			node = used++;
+		}
+		items[node] = someItem;
+		someItem.setPosition(node);
+		size++;
+		return node;
+	}
+
+	/**
+	 * Links the given node into the list after the given one,
+	 * or first if that is -1.
+	 */
+	private void linkAfter(int node, int before)
+	{
+		int after = before == -1 ? first : next[before];
+		previous[node] = before;
+		next[node] = after;
+		if (before == -1)
+			first = node;
+		else
+			next[before] = node;
+		if (after == -1)
+			last = node;
+		else
+			previous[after] = node;
+	}
+
+	/**
+	 * Returns the node of the Item at the given position, walking from
+	 * the closest of the two ends and the last position found.
+	 */
+	private int nodeAt(int index)
+	{
+		int node, at;
+		if (index < size - 1 - index) {
+			node = first;
+			at = 0;
+		}
+		else {
+			node = last;
+			at = size - 1;
+		}
+		if (foundIndex != -1 && Math.abs(index - foundIndex) < Math.abs(index - at)) {
+			node = foundNode;
+			at = foundIndex;
+		}
+		for (; at < index; at++)
+			node = next[node];
+		for (; at > index; at--)
+			node = previous[node];
+		foundIndex = index;
+		foundNode = node;
+		return node;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public Item get(int index)
+	{
+		checkIndex(index);
+		return items[nodeAt(index)];
+	}
+
+	/**
+	 * Walks the list once for the left-most tallest Item.
+	 */
+	public int indexOfMaximum()
+	{
+		int result = -1, maximum = 0, index = 0;
+		for (int node = first; node != -1; node = next[node], index++)
+			if (result == -1 || items[node].getValue() > maximum) {
+				maximum = items[node].getValue();
+				result = index;
+			}
+		return result;
+	}
+
+	/**
+	 * Walks the list once for the left-most shortest Item.
+	 */
+	public int indexOfMinimum()
+	{
+		int result = -1, minimum = 0, index = 0;
+		for (int node = first; node != -1; node = next[node], index++)
+			if (result == -1 || items[node].getValue() < minimum) {
+				minimum = items[node].getValue();
+				result = index;
+			}
+		return result;
+	}
+
+	/**
+	 * Resets the selected Item to the first one.
+	 */
+	public void reset()
+	{
+		changeSelected(first, 0);
+	}
+
+	/**
+	 * Defines the selected Item to be the given Item, if it is in the
+	 * collection. Items remember their node, so this is constant time;
+	 * its position is known if it was the last one looked up.
+	 */
+	public void reset(Item someItem)
+	{
+		changeSelected(-1, -1);
+		if (someItem != null) {
+			int node = someItem.getPosition();
+			if (node >= 0 && node < used && items[node] == someItem)
+				changeSelected(node, foundIndex != -1 && foundNode == node ? foundIndex : -1);
+			else {
+				int index = 0;
+				for (node = first; node != -1; node = next[node], index++)	//	Put in another
+					if (items[node] == someItem) {								//		collection since
+						someItem.setPosition(node);
+						changeSelected(node, index);
+						break;
+					}
+			}
+		}
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be Items of the
+	 * collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public void highlight(Item [] someItems)
+	{
+		changeSelected(-1, -1);
+		highlighted = new Item[someItems.length];
+		System.arraycopy(someItems, 0, highlighted, 0, someItems.length);
+		for (int i = 0; i < highlighted.length; i++)
+			highlighted[i].highlight(true);
+		highlightChanged(0, size);
+	}
+
+	/**
+	 * Adds the given Item after all the others.
+	 * That Item becomes the Item currently selected.
+	 */
+	public void add(Item someItem)
+	{
+		int node = newNode(someItem);
+		linkAfter(node, last);				//	No Item moves, so foundIndex holds
+		itemsChanged(size - 1, size);
+		changeSelected(node, size - 1);
+	}
+
+	/**
+	 * Inserts the given Item right after the selected one, or after all
+	 * the others if none is selected, in constant time.
+	 * That Item becomes the Item currently selected.
+	 */
+	public void insert(Item someItem)
+	{
+		int node = newNode(someItem);
+		int index = selected == -1 ? size - 1
+					: selectedIndex == -1 ? -1 : selectedIndex + 1;
+		linkAfter(node, selected == -1 ? last : selected);
+		foundIndex = -1;
+		itemsChanged(0, size);				//	Wherever it went, the rest moved right
+		changeSelected(node, index);
+	}
+
+	/**
+	 * Paints the Items that fall inside the area being painted,
+	 * from left to right.
+	 */
+	public void paint(Graphics pane)
+	{
+		int from = 0, to = size;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			from = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			to = (int) Math.min(to, (long) (clip.x + clip.width - x)
+								   / Item.OVERALL_WIDTH + 2);
+		}
+		if (from >= to)
+			return;
+		int node = nodeAt(from);
+		for (int i = from; i < to; i++, node = next[node])
+			items[node].paint(pane, x + i * Item.OVERALL_WIDTH, y);
+	}
+
+	public boolean hasNext()
+	{
+		return selected > -1;
+	}
+
+	/**
+	 * Returns the selected Item, if any, and selects the one after it.
+	 */
+	public Item next()
+	{
+		Item result = null;
+		if (selected > -1) {
+			result = items[selected];
+			changeSelected(next[selected], selectedIndex == -1 ? -1 : selectedIndex + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the selected Item (if any) in constant time, putting its
+	 * node on the free list. No Item is selected any more.
+	 */
+	public void remove()
+	{
+		if (selected > -1) {
+			int node = selected;
+			changeSelected(-1, -1);
+			if (previous[node] == -1)
+				first = next[node];
+			else
+				next[previous[node]] = next[node];
+			if (next[node] == -1)
+				last = previous[node];
+			else
+				previous[next[node]] = previous[node];
+			items[node] = null;
+			next[node] = free;
+			free = node;
+			size--;
+			foundIndex = -1;
+			itemsChanged(0, size + 1);		//	Wherever it was, the rest moved left
+		}
+	}
+
+	/**
+	 * Returns a new array holding the Items of the collection,
+	 * in order.
+	 */
+	public Item [] toArray()
+	{
+		Item [] result = new Item[size];
+		int i = 0;
+		for (int node = first; node != -1; node = next[node])
+			result[i++] = items[node];
+		return result;
+	}
+
+	/**
+	 * Puts the Items in the order of the given array, which must hold
+	 * exactly the Items of the collection, laying the list out again in
+	 * the first nodes, in order. No Item is selected any more.
+	 */
+	public void setOrder(Item [] someItems)
+	{
+		if (someItems.length != size)
+			throw new IllegalArgumentException("Expected " + size + " Items, not "
+											   + someItems.length);
+		changeSelected(-1, -1);
+		java.util.Arrays.fill(items, 0, used, null);
+		for (int i = 0; i < size; i++) {
+			items[i] = someItems[i];
+			items[i].setPosition(i);
+			previous[i] = i - 1;
+			next[i] = i + 1;
+		}
+		used = size;
+		free = -1;
+		first = size > 0 ? 0 : -1;
+		last = size - 1;
+		if (size > 0)
+			next[last] = -1;
+		foundIndex = -1;
+		itemsChanged(0, size);
+	}
+
+	/**
+	 * Sorts the Items from smallest to largest with the given strategy,
+	 * on an array of them, then lays the list out again in that order.
+	 * No Item is selected any more.
+	 */
+	public void sortInPlace(SortStrategy strategy)
+	{
+		changeSelected(-1, -1);
+		Item [] sorted = toArray();
+		strategy.sort(sorted, 0, size);
+		setOrder(sorted);
+	}
+
+}	// end LinkedDataCollection
@@ -0,0 +1,380 @@
+/**
+ * Sorts a range of an array of Items using merge sort.
+ * Unlike the recursive merge sort on DataCollections, this one
+ * works on index ranges of a single array and merges through one
+ * scratch buffer that is allocated once per sort, so no intermediate
+ * collections are built.
+ * The sort is stable: Items with equal values keep their relative order.
+ * If a SortTrace is given, the sort records what it does in it.
+ */
+public class MergeSorter implements SortStrategy
+{
+	/**
+	 * Holds Items while they are merged; sized once per sort
+	 */
+	protected Item [] scratch;
+
+	/**
+	 * Number of comparisons made by the last sort
+	 */
+	protected long comparisons;
+
+	/**
+	 * Records what the sort does, if not null
+	 */
+	protected SortTrace trace;
+
+	/**
+	 * Start of the range being sorted, where traced positions start
+	 */
+	protected int base;
+
+	/**
+	 * Set when the trace was begun by the caller for the whole array,
+	 * so positions are traced from the start of the array
+	 */
+	private boolean continuing;
+
+	/**
+	 * Ranges of at most this many Items are insertion sorted
+	 * instead of being split any further
+	 */
+	private int cutoff;
+
+	/**
+	 * Splits all the way down to single Items.
+	 */
+	public MergeSorter()
+	{
+		this(1);
+	}
+
+	/**
+	 * Splits until ranges have at most someCutoff Items.
+	 */
+	protected MergeSorter(int someCutoff)
+	{
+		cutoff = Math.max(someCutoff, 1);
+	}
+
+	public String getName()
+	{
+		return "Merge";
+	}
+
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	public boolean supportsKeys(int lowest, int highest)
+	{
+		return true;
+	}
+
+	public long getComparisons()
+	{
+		return comparisons;
+	}
+
+	public SortStrategy newInstance()
+	{
+		return new MergeSorter(cutoff);
+	}
+
+	/**
+	 * Has the following sorts record what they do in the given
+	 * trace, or stops recording if it is null.
+	 */
+	public void setTrace(SortTrace someTrace)
+	{
+		trace = someTrace;
+		continuing = false;
+	}
+
+	/**
+	 * Has the following sorts add what they do to the given trace,
+	 * which the caller has begun for the whole array, counting the
+	 * positions from the start of the array rather than of the range.
+	 */
+	public void continueTrace(SortTrace someTrace)
+	{
+		trace = someTrace;
+		continuing = true;
+	}
+
+	/**
+	 * Readies the counters (and the trace) for a sort of [from, to).
+	 */
+	protected void begin(Item [] items, int from, int to)
+	{
+		comparisons = 0;
+		base = continuing ? 0 : from;
+		if (trace != null && ! continuing)
+			trace.begin(items, from, to);
+	}
+
+	/**
+	 * Compares the Items at the two positions, counting (and
+	 * tracing) the comparison.
+	 */
+	protected int compare(Item [] items, int first, int second)
+	{
+		comparisons++;
+		if (trace != null)
+			trace.compare(first - base, second - base);
+		return items[first].compareTo(items[second]);
+	}
+
+	/**
+	 * Sorts the Items in the given array from smallest to largest.
+	 * @param items the array to sort
+	 */
+	public void sort(Item [] items)
+	{
+		sort(items, 0, items.length);
+	}
+
+	/**
+	 * Sorts the Items in positions from (inclusive) to to (exclusive)
+	 * of the given array from smallest to largest.
+	 * @param items the array to sort
+	 * @param from first position of the range
+	 * @param to one past the last position of the range
+	 */
+	public void sort(Item [] items, int from, int to)
+	{
+		begin(items, from, to);
+		if (to - from > 1) {
+			scratch = new Item[to - from];		// The only extra storage we need
+			mergeSort(items, from, to);
+			scratch = null;						// Let the buffer go
+		}
+	}
+
+	/**
+	 * Sorts the keys in positions from (inclusive) to to (exclusive)
+	 * from smallest to largest, carrying the satellite values along,
+	 * the way Items are sorted but straight on the arrays, so that a
+	 * collection that keeps no Items makes none to be sorted.
+	 * The comparisons are counted; nothing is traced.
+	 */
+	public void sort(int [] keys, int [] satellite, int from, int to)
+	{
+		comparisons = 0;
+		if (to - from > 1) {
+			int half = (to - from + 1) / 2;		// Only first halves are copied out
+			mergeSort(keys, satellite, from, to, new int[half], new int[half]);
+		}
+	}
+
+	/**
+	 * Recursively sorts the range [from, to) of the keys, and of the
+	 * satellite values with them, merging through the scratch arrays.
+	 */
+	private void mergeSort(int [] keys, int [] satellite, int from, int to,
+						   int [] keyScratch, int [] satelliteScratch)
+	{
+		if (to - from > cutoff) {
+			int middle = from + (to - from + 1) / 2;
+			mergeSort(keys, satellite, from, middle, keyScratch, satelliteScratch);
+			mergeSort(keys, satellite, middle, to, keyScratch, satelliteScratch);
+
+			comparisons++;
+			if (keys[middle - 1] <= keys[middle])
+				return;							// Already in order, nothing to merge
+			int firstLength = middle - from;
+			System.arraycopy(keys, from, keyScratch, 0, firstLength);
+			System.arraycopy(satellite, from, satelliteScratch, 0, firstLength);
+			int first = 0, second = middle, result = from;
+			while (first < firstLength && second < to) {
+				comparisons++;
+				if (keyScratch[first] <= keys[second]) {	// Take from first on ties
+					keys[result] = keyScratch[first];
+					satellite[result++] = satelliteScratch[first++];
+				}
+				else {
+					keys[result] = keys[second];
+					satellite[result++] = satellite[second++];
+				}
+			}
+			System.arraycopy(keyScratch, first, keys, result, firstLength - first);
+			System.arraycopy(satelliteScratch, first, satellite, result, firstLength - first);
+		}
+		else if (cutoff > 1) {				// Base case for a short range
+			for (int i = from + 1; i < to; i++) {
+				int key = keys[i], other = satellite[i];
+				int j = i;
+				while (j > from) {
+					comparisons++;
+					if (keys[j - 1] <= key)
+						break;
+					keys[j] = keys[j - 1];
+					satellite[j] = satellite[j - 1];
+					j--;
+				}
+				keys[j] = key;
+				satellite[j] = other;
+			}
+		}
+	}
+
+	/**
+	 * Recursively sorts the range [from, to) of the given array.
+	 */
+	private void mergeSort(Item [] items, int from, int to)
+	{
+		if (to - from > cutoff) {	// Recursive step sorts both halves and merges them
+			int middle = from + (to - from + 1) / 2;	// First half rounded up, as before
+			mergeSort(items, from, middle);
+			mergeSort(items, middle, to);
+			merge(items, from, middle, to);
+		}
+		else if (cutoff > 1)		// Base case for a short range
+			comparisons += InsertionSorter.insertionSort(items, from, to, trace, base);
+	}
+
+	/**
+	 * Merges the sorted ranges [from, middle) and [middle, to) of
+	 * the given array into the sorted range [from, to).
+	 * Only the first range is copied to the scratch buffer; the merged
+	 * result is written back into the array from left to right.
+	 */
+	protected void merge(Item [] items, int from, int middle, int to)
+	{
+		if (compare(items, middle - 1, middle) <= 0)
+			return;								// Already in order, nothing to merge
+		if (trace != null) {
+			tracedMerge(items, from, middle, to);
+			return;
+		}
+
+		int firstLength = middle - from;
+		System.arraycopy(items, from, scratch, 0, firstLength);
+
+		int first = 0, second = middle, result = from;
+		while (first < firstLength && second < to) {
+			comparisons++;
+			if (scratch[first].compareTo(items[second]) <= 0)	// Take from first on ties
+				items[result++] = scratch[first++];
+			else
+				items[result++] = items[second++];
+		}
+		while (first < firstLength)				// Copy what is left of the first half;
+			items[result++] = scratch[first++];	//		the rest of the second is in place
+	}
+
+	/**
+	 * Does the same as merge, recording every step in the trace.
+	 * Items coming back from the scratch buffer are recorded as writes,
+	 * Items moving within the array as moves.
+	 */
+	private void tracedMerge(Item [] items, int from, int middle, int to)
+	{
+		int firstLength = middle - from;
+		System.arraycopy(items, from, scratch, 0, firstLength);
+
+		int first = 0, second = middle, result = from;
+		while (first < firstLength && second < to) {
+			comparisons++;
+			trace.compare(from + first - base, second - base);
+			if (scratch[first].compareTo(items[second]) <= 0) {
+				trace.write(result - base, scratch[first].getValue());
+				items[result++] = scratch[first++];
+			}
+			else {
+				trace.move(result - base, second - base);
+				items[result++] = items[second++];
+			}
+		}
+		while (first < firstLength) {
+			trace.write(result - base, scratch[first].getValue());
+			items[result++] = scratch[first++];
+		}
+	}
+
+	/**
+	 * Merges the sorted ranges [first, firstEnd) and [second, secondEnd)
+	 * of source into destination, starting at position at.
+	 * On ties, Items of the first range go first.
+	 * @return the number of comparisons made
+	 */
+	static long merge(Item [] source, int first, int firstEnd,
+					  int second, int secondEnd,
+					  Item [] destination, int at)
+	{
+		long count = 0;
+		while (first < firstEnd && second < secondEnd) {
+			count++;
+			if (source[first].compareTo(source[second]) <= 0)
+				destination[at++] = source[first++];
+			else
+				destination[at++] = source[second++];
+		}
+		System.arraycopy(source, first, destination, at, firstEnd - first);
+		at += firstEnd - first;
+		System.arraycopy(source, second, destination, at, secondEnd - second);
+		return count;
+	}
+
+	/**
+	 * Does the same as the merge of source into destination above,
+	 * for a first range that ends where the second begins, recording
+	 * it in the given trace as if it were done in place: every Item
+	 * that lands somewhere new is written there.
+	 * @return the number of comparisons made
+	 */
+	static long merge(Item [] source, int first, int firstEnd,
+					  int second, int secondEnd,
+					  Item [] destination, int at, SortTrace trace)
+	{
+		long count = 0;
+		while (first < firstEnd && second < secondEnd) {
+			count++;
+			trace.compare(first, second);
+			Item taken = source[first].compareTo(source[second]) <= 0
+						 ? source[first++] : source[second++];
+			trace.write(at, taken.getValue());
+			destination[at++] = taken;
+		}
+		if (at != first)						// Unless they are already in place
+			for (int i = first; i < firstEnd; i++)
+				trace.write(at + i - first, source[i].getValue());
+		System.arraycopy(source, first, destination, at, firstEnd - first);
+		at += firstEnd - first;
+		System.arraycopy(source, second, destination, at, secondEnd - second);	// In place
+		return count;
+	}
+
+	/**
+	 * Does the same as the merge of source into destination above, on
+	 * keys and satellite values kept in arrays of ints: the keys are
+	 * merged from keys into keyDestination, and their satellite values
+	 * from satellite into satelliteDestination along with them.
+	 * @return the number of comparisons made
+	 */
+	static long merge(int [] keys, int [] satellite, int first, int firstEnd,
+					  int second, int secondEnd,
+					  int [] keyDestination, int [] satelliteDestination, int at)
+	{
+		long count = 0;
+		while (first < firstEnd && second < secondEnd) {
+			count++;
+			if (keys[first] <= keys[second]) {	// Take from first on ties
+				keyDestination[at] = keys[first];
+				satelliteDestination[at++] = satellite[first++];
+			}
+			else {
+				keyDestination[at] = keys[second];
+				satelliteDestination[at++] = satellite[second++];
+			}
+		}
+		System.arraycopy(keys, first, keyDestination, at, firstEnd - first);
+		System.arraycopy(satellite, first, satelliteDestination, at, firstEnd - first);
+		at += firstEnd - first;
+		System.arraycopy(keys, second, keyDestination, at, secondEnd - second);
+		System.arraycopy(satellite, second, satelliteDestination, at, secondEnd - second);
+		return count;
+	}
+
+}	// end MergeSorter
@@ -0,0 +1,219 @@
+/**
+ * A merge sort that adapts to the order already in the Items.
+ * Instead of splitting all the way down to single Items, it finds
+ * the runs that are already ascending (or strictly descending, which
+ * it reverses) and only merges those runs, pairwise, until one is left.
+ * Sorted input is one run, so it costs a single pass of comparisons;
+ * input with r runs costs about n log r comparisons.
+ * The sort is stable.
+ */
+public class NaturalMergeSorter extends MergeSorter
+{
+	public String getName()
+	{
+		return "Natural";
+	}
+
+	public SortStrategy newInstance()
+	{
+		return new NaturalMergeSorter();
+	}
+
+	public void sort(Item [] items, int from, int to)
+	{
+		begin(items, from, to);
+		if (to - from < 2)
+			return;
+
+		int [] runs = findRuns(items, from, to);
+		if (runs.length > 2) {
+			scratch = new Item[to - from];		// The only extra storage we need
+			while (runs.length > 2)
+				runs = mergeRuns(items, runs);
+			scratch = null;						// Let the buffer go
+		}
+	}
+
+	/**
+	 * Sorts the keys in positions from (inclusive) to to (exclusive)
+	 * the same way, carrying the satellite values along: sorted keys
+	 * are one run and cost a single pass. The runs are merged back and
+	 * forth between the arrays and one scratch copy of each.
+	 */
+	public void sort(int [] keys, int [] satellite, int from, int to)
+	{
+		comparisons = 0;
+		if (to - from < 2)
+			return;
+
+		int [] runs = findRuns(keys, satellite, from, to);
+		int [] keySource = keys, satelliteSource = satellite;
+		int [] keyDestination = new int[keys.length], satelliteDestination = new int[keys.length];
+		while (runs.length > 2) {
+			int count = runs.length - 1;
+			int [] merged = new int[(count + 1) / 2 + 1];
+			for (int i = 0; i < count; i += 2) {
+				merged[i / 2] = runs[i];
+				int end = Math.min(i + 2, count);
+				comparisons += merge(keySource, satelliteSource, runs[i], runs[i + 1],
+									 runs[i + 1], runs[end],
+									 keyDestination, satelliteDestination, runs[i]);
+			}
+			merged[merged.length - 1] = runs[count];
+			runs = merged;
+			int [] temp = keySource;
+			keySource = keyDestination;
+			keyDestination = temp;
+			temp = satelliteSource;
+			satelliteSource = satelliteDestination;
+			satelliteDestination = temp;
+		}
+		if (keySource != keys) {				// Make sure we end up in keys
+			System.arraycopy(keySource, from, keys, from, to - from);
+			System.arraycopy(satelliteSource, from, satellite, from, to - from);
+		}
+	}
+
+	/**
+	 * Splits [from, to) into maximal runs that are in order,
+	 * reversing the strictly descending ones on the way.
+	 * @return the boundaries of the runs: run i is [runs[i], runs[i+1])
+	 */
+	private int [] findRuns(Item [] items, int from, int to)
+	{
+		int [] runs = new int[16];
+		int count = 0;
+		runs[count++] = from;
+
+		int start = from;
+		while (start < to) {
+			int end = start + 1;
+			if (end < to) {
+				if (compare(items, end, start) < 0) {	// Strictly descending
+					end++;
+					while (end < to && compare(items, end, end - 1) < 0)
+						end++;
+					reverse(items, start, end);
+				}
+				else {									// Ascending
+					end++;
+					while (end < to && compare(items, end, end - 1) >= 0)
+						end++;
+				}
+			}
+			if (count == runs.length) {		// Make room for more runs
+				int [] temp = new int[runs.length * 2];
+				System.arraycopy(runs, 0, temp, 0, count);
+				runs = temp;
+			}
+			runs[count++] = end;
+			start = end;
+		}
+
+		int [] result = new int[count];
+		System.arraycopy(runs, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * Does the same as findRuns above on keys kept in an array of ints,
+	 * moving the satellite values of reversed runs along with their keys.
+	 * @return the boundaries of the runs: run i is [runs[i], runs[i+1])
+	 */
+	private int [] findRuns(int [] keys, int [] satellite, int from, int to)
+	{
+		int [] runs = new int[16];
+		int count = 0;
+		runs[count++] = from;
+
+		int start = from;
+		while (start < to) {
+			int end = start + 1;
+			if (end < to) {
+				if (less(keys, end, start)) {			// Strictly descending
+					end++;
+					while (end < to && less(keys, end, end - 1))
+						end++;
+					reverse(keys, satellite, start, end);
+				}
+				else {									// Ascending
+					end++;
+					while (end < to && ! less(keys, end, end - 1))
+						end++;
+				}
+			}
+			if (count == runs.length) {		// Make room for more runs
+				int [] temp = new int[runs.length * 2];
+				System.arraycopy(runs, 0, temp, 0, count);
+				runs = temp;
+			}
+			runs[count++] = end;
+			start = end;
+		}
+
+		int [] result = new int[count];
+		System.arraycopy(runs, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * Determines whether the key at the first position is smaller than
+	 * the one at the second, counting the comparison.
+	 */
+	private boolean less(int [] keys, int first, int second)
+	{
+		comparisons++;
+		return keys[first] < keys[second];
+	}
+
+	/**
+	 * Merges each pair of neighbouring runs, leaving a last unpaired
+	 * run as it is.
+	 * @return the boundaries of the merged runs
+	 */
+	private int [] mergeRuns(Item [] items, int [] runs)
+	{
+		int count = runs.length - 1;
+		int [] result = new int[(count + 1) / 2 + 1];
+		for (int i = 0; i < count; i += 2) {
+			result[i / 2] = runs[i];
+			if (i + 1 < count)
+				merge(items, runs[i], runs[i + 1], runs[i + 2]);
+		}
+		result[result.length - 1] = runs[count];
+		return result;
+	}
+
+	/**
+	 * Reverses the order of the keys in [from, to), and of their
+	 * satellite values with them.
+	 */
+	private void reverse(int [] keys, int [] satellite, int from, int to)
+	{
+		for (int i = from, j = to - 1; i < j; i++, j--) {
+			int temp = keys[i];
+			keys[i] = keys[j];
+			keys[j] = temp;
+			temp = satellite[i];
+			satellite[i] = satellite[j];
+			satellite[j] = temp;
+		}
+	}
+
+	/**
+	 * Reverses the order of the Items in [from, to).
+	 */
+	private void reverse(Item [] items, int from, int to)
+	{
+		for (int i = from, j = to - 1; i < j; i++, j--) {
+			Item temp = items[i];
+			items[i] = items[j];
+			items[j] = temp;
+			if (trace != null) {
+				trace.write(i - base, items[i].getValue());
+				trace.write(j - base, items[j].getValue());
+			}
+		}
+	}
+
+}	// end NaturalMergeSorter
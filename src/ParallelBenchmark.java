@@ -0,0 +1,139 @@
+import java.awt.Color;
+import java.util.Random;
+
+/**
+ * Times the parallel scans and the parallel merge sort as the number of
+ * chunks they split the work into grows from one (which is the
+ * sequential scan or merge sort) to the number of processors, so that
+ * how they scale with cores can be seen.
+ * Every row is the best of several runs, with how many times faster it
+ * is than one chunk. More chunks than processors cannot go faster: the
+ * shared Workers have one thread per processor.
+ * Run it with
+ *		java ParallelBenchmark [Items] [largest number of chunks] [runs] [sorted Items]
+ * (4000000 Items scanned, one chunk per processor, 5 runs and 1000000
+ * Items sorted by default).
+ */
+public class ParallelBenchmark
+{
+	/**
+	 * The number of runs each time is the best of
+	 */
+	private static int runs;
+
+	public static void main(String [] arguments)
+	{
+		int items = arguments.length > 0 ? Integer.parseInt(arguments[0]) : 4000000;
+		int chunks = arguments.length > 1 ? Integer.parseInt(arguments[1]) : Workers.PARALLELISM;
+		runs = arguments.length > 2 ? Integer.parseInt(arguments[2]) : 5;
+		int sorted = arguments.length > 3 ? Integer.parseInt(arguments[3]) : 1000000;
+
+		Random random = new Random(1);
+		int [] values = new int[items];
+		for (int i = 0; i < items; i++)
+			values[i] = 1 + random.nextInt(100);
+		DataCollection array = new ArrayDataCollection(0, 0), primitive = new PrimitiveDataCollection(0, 0);
+		array.addAll(values, Color.orange);
+		primitive.addAll(values, Color.orange);
+		Item [] unsorted = new Item[Math.min(sorted, items)];
+		for (int i = 0; i < unsorted.length; i++)
+			unsorted[i] = new Item(values[i], Color.orange);
+
+		int largest = Math.max(chunks, 1);		//	Warm up first, so that no row
+												//		is slower for coming first
+		for (int parallelism = 1; parallelism <= largest; parallelism *= 2) {
+			ParallelScanner scanner = new ParallelScanner(2, parallelism);
+			timeExtremes(scanner, array);
+			timeExtremes(scanner, primitive);
+			timeStatistics(scanner, primitive);
+			timeSort(new ParallelMergeSorter(ParallelMergeSorter.THRESHOLD, parallelism), unsorted);
+		}
+
+		System.out.println(items + " Items, " + Workers.PARALLELISM + " processors, best of " + runs + " runs");
+		System.out.println("chunks   extremes (array)   extremes (values)   statistics (values)"
+						   + "   sort (" + unsorted.length + ")");
+		long [] first = null;
+		for (int parallelism = 1; parallelism <= largest; parallelism *= 2) {
+			long [] times = {
+				timeExtremes(new ParallelScanner(2, parallelism), array),
+				timeExtremes(new ParallelScanner(2, parallelism), primitive),
+				timeStatistics(new ParallelScanner(2, parallelism), primitive),
+				timeSort(new ParallelMergeSorter(ParallelMergeSorter.THRESHOLD, parallelism), unsorted)
+			};
+			if (first == null)
+				first = times;
+			System.out.print(pad("" + parallelism, 6));
+			for (int i = 0; i < times.length; i++)
+				System.out.print(pad(times[i] / 1000 + " us x" + speedup(first[i], times[i]), 20));
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Returns the best time in nanoseconds the scanner takes to find the
+	 * extremes of the collection.
+	 */
+	private static long timeExtremes(ParallelScanner scanner, DataCollection collection)
+	{
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < runs; run++) {
+			long start = System.nanoTime();
+			scanner.indexesOfExtremes(collection);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the best time in nanoseconds the scanner takes to gather
+	 * the statistics of the collection.
+	 */
+	private static long timeStatistics(ParallelScanner scanner, DataCollection collection)
+	{
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < runs; run++) {
+			long start = System.nanoTime();
+			scanner.statistics(collection);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the best time in nanoseconds the sorter takes to sort a
+	 * copy of the Items.
+	 */
+	private static long timeSort(SortStrategy sorter, Item [] unsorted)
+	{
+		long best = Long.MAX_VALUE;
+		Item [] items = new Item[unsorted.length];
+		for (int run = 0; run < runs; run++) {
+			System.arraycopy(unsorted, 0, items, 0, items.length);
+			long start = System.nanoTime();
+			sorter.sort(items, 0, items.length);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	/**
+	 * Returns how many times faster the time is than the first one,
+	 * to one decimal.
+	 */
+	private static String speedup(long first, long time)
+	{
+		return "" + Math.round(10.0 * first / Math.max(time, 1)) / 10.0;
+	}
+
+	/**
+	 * Right-aligns the text in the given width.
+	 */
+	private static String pad(String text, int width)
+	{
+		StringBuffer result = new StringBuffer();
+		for (int i = text.length(); i < width; i++)
+			result.append(' ');
+		return result.append(text).toString();
+	}
+
+}	// end ParallelBenchmark
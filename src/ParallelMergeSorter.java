@@ -0,0 +1,342 @@
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A merge sort that splits large ranges across the shared Workers.
+ * The range is cut into one chunk per worker, the chunks are sorted
+ * at the same time, and then neighbouring chunks are merged in rounds.
+ * Every merge is itself cut into independent pieces, so even the last
+ * merge of the two halves keeps all the workers busy.
+ * Ranges shorter than the threshold are sorted by the sequential
+ * MergeSorter. Like MergeSorter, the sort is stable.
+ */
+public class ParallelMergeSorter extends MergeSorter
+{
+	/**
+	 * Default smallest range worth sorting in parallel
+	 */
+	public static final int THRESHOLD = 8192;
+
+	/**
+	 * Ranges with fewer Items than this are sorted sequentially
+	 */
+	private int threshold;
+
+	/**
+	 * The number of chunks (and merge pieces) to split the work into
+	 */
+	private int parallelism;
+
+	/**
+	 * Comparisons made so far by all the workers of the current sort
+	 */
+	private AtomicLong counter = new AtomicLong();
+
+	/**
+	 * Uses as many chunks as there are workers.
+	 * @param someThreshold smallest range worth sorting in parallel
+	 */
+	public ParallelMergeSorter(int someThreshold)
+	{
+		this(someThreshold, Workers.PARALLELISM);
+	}
+
+	/**
+	 * @param someThreshold smallest range worth sorting in parallel
+	 * @param someParallelism number of chunks to split the work into
+	 */
+	public ParallelMergeSorter(int someThreshold, int someParallelism)
+	{
+		threshold = Math.max(someThreshold, 2);
+		parallelism = Math.max(someParallelism, 1);
+	}
+
+	public String getName()
+	{
+		return "Parallel";
+	}
+
+	public SortStrategy newInstance()
+	{
+		return new ParallelMergeSorter(threshold, parallelism);
+	}
+
+	/**
+	 * Returns the smallest range that is sorted in parallel.
+	 */
+	public int getThreshold()
+	{
+		return threshold;
+	}
+
+	/**
+	 * Returns the number of chunks the work is split into.
+	 */
+	public int getParallelism()
+	{
+		return parallelism;
+	}
+
+	/**
+	 * Sorts the Items in positions from (inclusive) to to (exclusive)
+	 * of the given array from smallest to largest, in parallel if the
+	 * range is at least as long as the threshold.
+	 */
+	public void sort(final Item [] items, int from, int to)
+	{
+		int chunks = Math.min(parallelism, (to - from) / 2);
+		if (to - from < threshold || chunks < 2) {
+			super.sort(items, from, to);		// Not worth the overhead
+			return;
+		}
+
+		counter.set(0);
+		final int [] bounds = new int[chunks + 1];	// Chunk i is [bounds[i], bounds[i+1])
+		for (int i = 0; i <= chunks; i++)
+			bounds[i] = from + (int) ((long) (to - from) * i / chunks);
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < chunks; i++) {		// Sort every chunk at the same time
+			final int start = bounds[i], end = bounds[i + 1];
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					MergeSorter leaf = new MergeSorter();
+					leaf.sort(items, start, end);
+					counter.addAndGet(leaf.getComparisons());
+					return null;
+				}
+			});
+		}
+		Workers.runAll(tasks);
+
+		Item [] source = items;					// Merge rounds go back and forth
+		Item [] destination = new Item[items.length];	//	between items and one buffer
+		int [] runs = bounds;
+		while (runs.length > 2) {
+			runs = mergeRound(source, destination, runs);
+			Item [] temp = source;
+			source = destination;
+			destination = temp;
+		}
+		if (source != items)					// Make sure we end up in items
+			System.arraycopy(source, from, items, from, to - from);
+		comparisons = counter.get();
+	}
+
+	/**
+	 * Sorts the keys in positions from (inclusive) to to (exclusive)
+	 * the same way, carrying the satellite values along, in parallel
+	 * if the range is at least as long as the threshold.
+	 */
+	public void sort(final int [] keys, final int [] satellite, int from, int to)
+	{
+		int chunks = Math.min(parallelism, (to - from) / 2);
+		if (to - from < threshold || chunks < 2) {
+			super.sort(keys, satellite, from, to);	// Not worth the overhead
+			return;
+		}
+
+		counter.set(0);
+		final int [] bounds = new int[chunks + 1];	// Chunk i is [bounds[i], bounds[i+1])
+		for (int i = 0; i <= chunks; i++)
+			bounds[i] = from + (int) ((long) (to - from) * i / chunks);
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < chunks; i++) {		// Sort every chunk at the same time
+			final int start = bounds[i], end = bounds[i + 1];
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					MergeSorter leaf = new MergeSorter();
+					leaf.sort(keys, satellite, start, end);
+					counter.addAndGet(leaf.getComparisons());
+					return null;
+				}
+			});
+		}
+		Workers.runAll(tasks);
+
+		int [] keySource = keys, satelliteSource = satellite;	// Merge rounds go back and forth
+		int [] keyDestination = new int[keys.length];			//	between the arrays and
+		int [] satelliteDestination = new int[keys.length];		//	one buffer for each
+		int [] runs = bounds;
+		while (runs.length > 2) {
+			runs = mergeRound(keySource, satelliteSource, keyDestination, satelliteDestination, runs);
+			int [] temp = keySource;
+			keySource = keyDestination;
+			keyDestination = temp;
+			temp = satelliteSource;
+			satelliteSource = satelliteDestination;
+			satelliteDestination = temp;
+		}
+		if (keySource != keys) {				// Make sure we end up in keys
+			System.arraycopy(keySource, from, keys, from, to - from);
+			System.arraycopy(satelliteSource, from, satellite, from, to - from);
+		}
+		comparisons = counter.get();
+	}
+
+	/**
+	 * Merges each pair of neighbouring runs of source into destination,
+	 * copying a last unpaired run as it is.
+	 * @param runs the boundaries of the sorted runs in source
+	 * @return the boundaries of the merged runs in destination
+	 */
+	private int [] mergeRound(final Item [] source, final Item [] destination, int [] runs)
+	{
+		int count = runs.length - 1;
+		int [] result = new int[(count + 1) / 2 + 1];
+		int pieces = Math.max(1, parallelism / (count / 2));
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < count; i += 2) {
+			result[i / 2] = runs[i];
+			if (i + 1 == count)
+				addCopy(tasks, source, runs[i], runs[i + 1], destination);
+			else
+				addMerge(tasks, source, runs[i], runs[i + 1], runs[i + 2],
+						 destination, pieces);
+		}
+		result[result.length - 1] = runs[count];
+		Workers.runAll(tasks);
+		return result;
+	}
+
+	/**
+	 * Does the same as mergeRound above on keys and satellite values
+	 * kept in arrays of ints.
+	 * @return the boundaries of the merged runs in the destinations
+	 */
+	private int [] mergeRound(int [] keys, int [] satellite,
+							  int [] keyDestination, int [] satelliteDestination, int [] runs)
+	{
+		int count = runs.length - 1;
+		int [] result = new int[(count + 1) / 2 + 1];
+		int pieces = Math.max(1, parallelism / (count / 2));
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < count; i += 2) {
+			result[i / 2] = runs[i];
+			int end = (i + 1 == count) ? runs[i + 1] : runs[i + 2];
+			addMerge(tasks, keys, satellite, runs[i], runs[i + 1], end,
+					 keyDestination, satelliteDestination, pieces);	// An empty second run copies
+		}
+		result[result.length - 1] = runs[count];
+		Workers.runAll(tasks);
+		return result;
+	}
+
+	/**
+	 * Adds the tasks that merge the sorted runs [from, middle) and
+	 * [middle, to) of the keys into [from, to) of keyDestination, and
+	 * their satellite values with them, cut into pieces the same way
+	 * as the Items are.
+	 */
+	private void addMerge(List<Callable<Object>> tasks, final int [] keys, final int [] satellite,
+						  int from, int middle, int to,
+						  final int [] keyDestination, final int [] satelliteDestination, int pieces)
+	{
+		pieces = Math.max(1, Math.min(pieces, middle - from));
+		int first = from, second = middle;
+		for (int k = 1; k <= pieces; k++) {
+			final int firstEnd = (k == pieces) ? middle
+								 : from + (int) ((long) (middle - from) * k / pieces);
+			final int secondEnd = (k == pieces) ? to
+								  : lowerBound(keys, middle, to, keys[firstEnd]);
+			final int start = first, secondStart = second;
+			final int at = from + (first - from) + (second - middle);
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					counter.addAndGet(merge(keys, satellite, start, firstEnd,
+											secondStart, secondEnd,
+											keyDestination, satelliteDestination, at));
+					return null;
+				}
+			});
+			first = firstEnd;
+			second = secondEnd;
+		}
+	}
+
+	/**
+	 * Adds a task that copies [from, to) of source into destination.
+	 */
+	private void addCopy(List<Callable<Object>> tasks, final Item [] source,
+						 final int from, final int to, final Item [] destination)
+	{
+		tasks.add(new Callable<Object>() {
+			public Object call() {
+				System.arraycopy(source, from, destination, from, to - from);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Adds the tasks that merge the sorted runs [from, middle) and
+	 * [middle, to) of source into [from, to) of destination.
+	 * The first run is cut into equal pieces; each piece is matched
+	 * with the part of the second run holding the values that belong
+	 * between it and the next piece, found by binary search.
+	 */
+	private void addMerge(List<Callable<Object>> tasks, final Item [] source,
+						  int from, int middle, int to,
+						  final Item [] destination, int pieces)
+	{
+		pieces = Math.max(1, Math.min(pieces, middle - from));
+		int first = from, second = middle;
+		for (int k = 1; k <= pieces; k++) {
+			final int firstEnd = (k == pieces) ? middle
+								 : from + (int) ((long) (middle - from) * k / pieces);
+			final int secondEnd = (k == pieces) ? to
+								  : lowerBound(source, middle, to, source[firstEnd]);
+			final int start = first, secondStart = second;
+			final int at = from + (first - from) + (second - middle);
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					counter.addAndGet(merge(source, start, firstEnd,
+											secondStart, secondEnd,
+											destination, at));
+					return null;
+				}
+			});
+			first = firstEnd;
+			second = secondEnd;
+		}
+	}
+
+	/**
+	 * Returns the first position in the sorted range [from, to) of
+	 * items whose Item is not smaller than the given one.
+	 */
+	private int lowerBound(Item [] items, int from, int to, Item someItem)
+	{
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			counter.incrementAndGet();
+			if (items[middle].compareTo(someItem) < 0)
+				from = middle + 1;
+			else
+				to = middle;
+		}
+		return from;
+	}
+
+	/**
+	 * Returns the first position in the sorted range [from, to) of
+	 * keys whose key is not smaller than the given one.
+	 */
+	private int lowerBound(int [] keys, int from, int to, int key)
+	{
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			counter.incrementAndGet();
+			if (keys[middle] < key)
+				from = middle + 1;
+			else
+				to = middle;
+		}
+		return from;
+	}
+
+}	// end ParallelMergeSorter
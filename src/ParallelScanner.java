@@ -0,0 +1,175 @@
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Looks at every value of a large collection with the shared Workers:
+ * the positions are cut into one chunk per worker, every chunk is
+ * looked at by itself, and the partial results are put together in
+ * the order of the chunks.
+ * The extremes found are the left-most ones, as everywhere else: each
+ * chunk keeps its own left-most, and a later chunk only wins if its
+ * value is strictly better. Statistics of the chunks are merged.
+ * Only collections whose getValue merely reads (arrays of Items, of
+ * values or of codes) are split; any other collection, and any shorter
+ * than the threshold, is looked at in one pass on the calling thread.
+ * Nothing may change the collection while it is being looked at.
+ */
+public class ParallelScanner
+{
+	/**
+	 * Default smallest collection worth looking at in parallel
+	 */
+	public static final int THRESHOLD = 1 << 16;
+
+	/**
+	 * Collections with fewer Items than this are looked at sequentially
+	 */
+	private int threshold;
+
+	/**
+	 * The number of chunks to split the work into
+	 */
+	private int parallelism;
+
+	/**
+	 * Uses as many chunks as there are workers.
+	 * @param someThreshold smallest collection worth looking at in parallel
+	 */
+	public ParallelScanner(int someThreshold)
+	{
+		this(someThreshold, Workers.PARALLELISM);
+	}
+
+	/**
+	 * @param someThreshold smallest collection worth looking at in parallel
+	 * @param someParallelism number of chunks to split the work into
+	 */
+	public ParallelScanner(int someThreshold, int someParallelism)
+	{
+		threshold = Math.max(someThreshold, 2);
+		parallelism = Math.max(someParallelism, 1);
+	}
+
+	/**
+	 * Determines whether the values of the given collection can be read
+	 * by several threads at once.
+	 */
+	public static boolean readsInParallel(DataCollection collection)
+	{
+		return collection instanceof ArrayDataCollection
+			|| collection instanceof PrimitiveDataCollection
+			|| collection instanceof CompressedDataCollection;
+	}
+
+	/**
+	 * Returns the boundaries of the chunks to cut the given collection
+	 * into, chunk i being [bounds[i], bounds[i+1]), or null if it is
+	 * better looked at in one go.
+	 */
+	private int [] chunksOf(DataCollection collection)
+	{
+		int size = collection.size();
+		int chunks = Math.min(parallelism, size / 2);
+		if (size < threshold || chunks < 2 || ! readsInParallel(collection))
+			return null;
+		int [] bounds = new int[chunks + 1];
+		for (int i = 0; i <= chunks; i++)
+			bounds[i] = (int) ((long) size * i / chunks);
+		return bounds;
+	}
+
+	/**
+	 * Returns the positions of the left-most shortest and the left-most
+	 * tallest Item of the given collection, in that order, or -1 and -1
+	 * if it is empty.
+	 */
+	public int [] indexesOfExtremes(final DataCollection collection)
+	{
+		int [] bounds = chunksOf(collection);
+		if (bounds == null)
+			return extremes(collection, 0, collection.size());
+
+		final int [][] partials = new int[bounds.length - 1][];
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < partials.length; i++) {
+			final int chunk = i, from = bounds[i], to = bounds[i + 1];
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					partials[chunk] = extremes(collection, from, to);
+					return null;
+				}
+			});
+		}
+		Workers.runAll(tasks);
+
+		int [] result = partials[0];
+		int minimum = collection.getValue(result[0]), maximum = collection.getValue(result[1]);
+		for (int i = 1; i < partials.length; i++) {	// Left to right, so ties stay left
+			int value = collection.getValue(partials[i][0]);
+			if (value < minimum) {
+				minimum = value;
+				result[0] = partials[i][0];
+			}
+			value = collection.getValue(partials[i][1]);
+			if (value > maximum) {
+				maximum = value;
+				result[1] = partials[i][1];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the positions of the left-most shortest and tallest Items
+	 * from position from (included) to position to (excluded).
+	 */
+	private static int [] extremes(DataCollection collection, int from, int to)
+	{
+		if (from >= to)
+			return new int [] {-1, -1};
+		int minimumIndex = from, maximumIndex = from;
+		int minimum = collection.getValue(from), maximum = minimum;
+		for (int i = from + 1; i < to; i++) {
+			int value = collection.getValue(i);
+			if (value < minimum) {
+				minimum = value;
+				minimumIndex = i;
+			}
+			else if (value > maximum) {
+				maximum = value;
+				maximumIndex = i;
+			}
+		}
+		return new int [] {minimumIndex, maximumIndex};
+	}
+
+	/**
+	 * Returns the statistics of all the values of the given collection,
+	 * merged from those of its chunks.
+	 */
+	public StreamingStatistics statistics(final DataCollection collection)
+	{
+		int [] bounds = chunksOf(collection);
+		if (bounds == null)
+			return StreamingStatistics.of(collection);
+
+		final StreamingStatistics [] partials = new StreamingStatistics[bounds.length - 1];
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int i = 0; i < partials.length; i++) {
+			final int chunk = i, from = bounds[i], to = bounds[i + 1];
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					partials[chunk] = StreamingStatistics.of(collection, from, to);
+					return null;
+				}
+			});
+		}
+		Workers.runAll(tasks);
+
+		StreamingStatistics result = partials[0];
+		for (int i = 1; i < partials.length; i++)
+			result.merge(partials[i]);
+		return result;
+	}
+
+}	// end ParallelScanner
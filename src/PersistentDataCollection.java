@@ -0,0 +1,566 @@
+import java.awt.*;							//	AWT = "Abstract Window Toolkit"
+import java.util.*;
+
+/**
+ * A DataCollection that keeps earlier versions of itself, so changes
+ * can be undone and redone.
+ * The Items are kept in chunks of at most CHUNK Items, reached through
+ * a spine holding the chunks in order and the position where each one
+ * starts. A version is a spine; versions share every chunk neither of
+ * them changed, and a chunk or a spine is copied only the first time
+ * it is changed after a version was saved. So removing an Item from a
+ * saved version copies one chunk and the spine, not the whole
+ * collection, and between two saves the collection changes in place.
+ * A version asked to be saved is only saved when the next change comes,
+ * so asking before something that turns out to change nothing (such as
+ * sorting Items already in order) saves nothing.
+ */
+public class PersistentDataCollection extends AbstractDataCollection
+{
+	/**
+	 * Largest number of Items in a chunk
+	 */
+	public static final int CHUNK = 1024;
+
+	/**
+	 * Largest number of versions kept for undoing
+	 */
+	public static final int HISTORY = 500;
+
+	/**
+	 * Some Items in order, and the edit that may still change them
+	 */
+	private static final class Chunk
+	{
+		final Item [] items;
+		int size;
+		final int edit;
+
+		Chunk(Item [] someItems, int someSize, int someEdit)
+		{
+			items = someItems;
+			size = someSize;
+			edit = someEdit;
+		}
+	}
+
+	/**
+	 * A saved version: the chunks in order, where each one starts,
+	 * and how many Items there are. Never changed once saved.
+	 */
+	private static final class Version
+	{
+		final Chunk [] spine;
+		final int [] starts;
+		final int chunks, size;
+
+		Version(Chunk [] someSpine, int [] someStarts, int someChunks, int someSize)
+		{
+			spine = someSpine;
+			starts = someStarts;
+			chunks = someChunks;
+			size = someSize;
+		}
+	}
+
+	/**
+	 * The chunks of the current version in order, where each one starts,
+	 * how many chunks there are, and how many Items
+	 */
+	private Chunk [] spine = new Chunk[4];
+	private int [] starts = new int[4];
+	private int chunks, size;
+
+	/**
+	 * The current edit, changed every time a version is saved or
+	 * brought back; chunks and spines of other edits are shared with
+	 * saved versions and must be copied before they are changed
+	 */
+	private int edit, spineEdit;
+
+	/**
+	 * Versions to go back to, latest last, and versions undone
+	 */
+	private LinkedList<Version> undone = new LinkedList<Version>(),
+								redone = new LinkedList<Version>();
+
+	/**
+	 * Whether the current version is to be saved before the next change
+	 */
+	private boolean pending;
+
+	/**
+	 * The lower left point of the first Item in the collection
+	 */
+	private int x, y;
+
+	/**
+	 * The position of the selected Item, or -1 if none is selected
+	 */
+	private int selected = -1;
+
+	/**
+	 * Items highlighted all together, if any
+	 */
+	private Item [] highlighted;
+
+	/**
+	 * Instantiates an empty collection with no saved versions.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public PersistentDataCollection(int someX, int someY)
+	{
+		x = someX;
+		y = someY;
+	}
+
+	//
+	//	Versions
+	//
+
+	/**
+	 * Saves the current version, to come back to with undo, as soon as
+	 * it changes; if it never does, nothing is saved.
+	 * Anything undone can no longer be redone once it changes.
+	 */
+	public void checkpoint()
+	{
+		pending = true;
+	}
+
+	/**
+	 * Saves the current version if it is to be saved, before a change.
+	 */
+	private void save()
+	{
+		if (pending) {
+			pending = false;
+			undone.addLast(current());
+			if (undone.size() > HISTORY)
+				undone.removeFirst();
+			redone.clear();
+		}
+	}
+
+	/**
+	 * Goes back to the version saved last, keeping the current one
+	 * for redo. Nothing is selected any more.
+	 * @return false if there was no version to go back to
+	 */
+	public boolean undo()
+	{
+		pending = false;					//	Nothing changed since it was asked
+		if (undone.isEmpty())
+			return false;
+		redone.addLast(current());
+		restore(undone.removeLast());
+		return true;
+	}
+
+	/**
+	 * Goes forward to the version undone last.
+	 * Nothing is selected any more.
+	 * @return false if there was no version to go forward to
+	 */
+	public boolean redo()
+	{
+		pending = false;
+		if (redone.isEmpty())
+			return false;
+		undone.addLast(current());
+		restore(redone.removeLast());
+		return true;
+	}
+
+	/**
+	 * Returns the numbers of versions there are to undo and to redo.
+	 */
+	public int getUndoCount()
+	{
+		return undone.size();
+	}
+	public int getRedoCount()
+	{
+		return redone.size();
+	}
+
+	/**
+	 * Returns the current version, freezing what it shares.
+	 */
+	private Version current()
+	{
+		edit++;								//	From now on, copy before changing
+		return new Version(spine, starts, chunks, size);
+	}
+
+	/**
+	 * Makes the given version the current one.
+	 */
+	private void restore(Version version)
+	{
+		changeSelected(-1);
+		edit++;
+		int oldSize = size;
+		spine = version.spine;
+		starts = version.starts;
+		chunks = version.chunks;
+		size = version.size;
+		itemsChanged(0, Math.max(oldSize, size));
+	}
+
+	//
+	//	Copying on the first change
+	//
+
+	/**
+	 * Makes the spine one this edit may change, with room for at
+	 * least the given number of chunks.
+	 */
+	private void writableSpine(int capacity)
+	{
+		if (spineEdit != edit || capacity > spine.length) {
+			int length = Math.max(capacity, spine.length);
+			if (capacity > spine.length)
+				length = Math.max(capacity, 2 * spine.length);
+			Chunk [] newSpine = new Chunk[length];
+			System.arraycopy(spine, 0, newSpine, 0, chunks);
+			int [] newStarts = new int[length];
+			System.arraycopy(starts, 0, newStarts, 0, chunks);
+			spine = newSpine;
+			starts = newStarts;
+			spineEdit = edit;
+		}
+	}
+
+	/**
+	 * Returns the given chunk, copied first if this edit may not change it.
+	 */
+	private Chunk writable(int chunk)
+	{
+		Chunk old = spine[chunk];
+		if (old.edit == edit)
+			return old;
+		Item [] items = new Item[CHUNK];
+		System.arraycopy(old.items, 0, items, 0, old.size);
+		writableSpine(chunks);
+		return spine[chunk] = new Chunk(items, old.size, edit);
+	}
+
+	/**
+	 * Returns the chunk holding the Item at the given position.
+	 */
+	private int chunkOf(int index)
+	{
+		int low = 0, high = chunks - 1;		//	The last chunk starting at or before index
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (starts[middle] <= index)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Puts the given Items, which must be those of the collection, in
+	 * order into the chunks there are, saving the version first if it
+	 * is to be saved. A chunk that already holds the same Items is kept
+	 * as it is, still shared with the versions that have it; the others
+	 * are copied first if this edit may not change them.
+	 * @return whether any Item moved
+	 */
+	private boolean reorder(Item [] someItems)
+	{
+		int c = 0;
+		while (c < chunks && holds(c, someItems))
+			c++;
+		if (c == chunks)
+			return false;					//	Nothing to save either
+		save();
+		for (; c < chunks; c++)
+			if (! holds(c, someItems)) {
+				Chunk chunk = writable(c);
+				System.arraycopy(someItems, starts[c], chunk.items, 0, chunk.size);
+				for (int i = 0; i < chunk.size; i++)
+					chunk.items[i].setPosition(starts[c] + i);
+			}
+		return true;
+	}
+
+	/**
+	 * Determines whether the given chunk holds the Items of the given
+	 * array at its positions.
+	 */
+	private boolean holds(int chunk, Item [] someItems)
+	{
+		Chunk holder = spine[chunk];
+		for (int i = 0; i < holder.size; i++)
+			if (holder.items[i] != someItems[starts[chunk] + i])
+				return false;
+		return true;
+	}
+
+	//
+	//	The DataCollection
+	//
+
+	/**
+	 * Selects the Item at the given position, or nothing if it is -1,
+	 * clearing any other highlighting.
+	 */
+	private void changeSelected(int newSelected)
+	{
+		if (highlighted != null) {
+			for (int i = 0; i < highlighted.length; i++)
+				highlighted[i].highlight(false);
+			highlighted = null;
+			highlightChanged(0, size);
+		}
+		if (selected != -1) {
+			get(selected).highlight(false);
+			highlightChanged(selected, selected + 1);
+		}
+		selected = newSelected < size ? newSelected : -1;
+		if (selected != -1) {
+			get(selected).highlight(true);
+			highlightChanged(selected, selected + 1);
+		}
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public Item get(int index)
+	{
+		checkIndex(index);
+		int chunk = chunkOf(index);
+		return spine[chunk].items[index - starts[chunk]];
+	}
+
+	/**
+	 * Looks through the chunks for the left-most tallest Item.
+	 */
+	public int indexOfMaximum()
+	{
+		int result = -1, maximum = 0;
+		for (int c = 0; c < chunks; c++)
+			for (int i = 0; i < spine[c].size; i++)
+				if (result == -1 || spine[c].items[i].getValue() > maximum) {
+					maximum = spine[c].items[i].getValue();
+					result = starts[c] + i;
+				}
+		return result;
+	}
+
+	/**
+	 * Looks through the chunks for the left-most shortest Item.
+	 */
+	public int indexOfMinimum()
+	{
+		int result = -1, minimum = 0;
+		for (int c = 0; c < chunks; c++)
+			for (int i = 0; i < spine[c].size; i++)
+				if (result == -1 || spine[c].items[i].getValue() < minimum) {
+					minimum = spine[c].items[i].getValue();
+					result = starts[c] + i;
+				}
+		return result;
+	}
+
+	public void reset()
+	{
+		changeSelected(0);
+	}
+
+	/**
+	 * Defines the selected Item to be the given Item, if it is in the
+	 * collection, trying the position it remembers first.
+	 */
+	public void reset(Item someItem)
+	{
+		changeSelected(-1);
+		if (someItem != null)
+			changeSelected(indexOf(someItem));
+	}
+
+	/**
+	 * Returns the position of the given Item, or -1 if it is not in
+	 * the collection. Removes only move Items to the left, so the Item
+	 * is looked for from the position it remembers down first, chunk
+	 * by chunk, and only then (after an undo put Items back) up.
+	 */
+	private int indexOf(Item someItem)
+	{
+		int hint = Math.min(Math.max(someItem.getPosition(), 0), size - 1);
+		if (hint < 0)
+			return -1;
+		int start = chunkOf(hint);
+		for (int c = start; c >= 0; c--)
+			for (int i = (c == start ? hint - starts[c] : spine[c].size - 1); i >= 0; i--)
+				if (spine[c].items[i] == someItem)
+					return found(someItem, starts[c] + i);
+		for (int c = start; c < chunks; c++)
+			for (int i = (c == start ? hint - starts[c] + 1 : 0); i < spine[c].size; i++)
+				if (spine[c].items[i] == someItem)
+					return found(someItem, starts[c] + i);
+		return -1;
+	}
+
+	/**
+	 * Has the given Item remember that it is at the given position.
+	 */
+	private static int found(Item someItem, int index)
+	{
+		someItem.setPosition(index);
+		return index;
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be Items of the
+	 * collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public void highlight(Item [] someItems)
+	{
+		changeSelected(-1);
+		highlighted = new Item[someItems.length];
+		System.arraycopy(someItems, 0, highlighted, 0, someItems.length);
+		for (int i = 0; i < highlighted.length; i++)
+			highlighted[i].highlight(true);
+		highlightChanged(0, size);
+	}
+
+	/**
+	 * Adds the given Item to the end of the last chunk, or of a new one.
+	 * That Item becomes the Item currently selected.
+	 */
+	public void add(Item someItem)
+	{
+		save();
+		Chunk last;
+		if (chunks > 0 && spine[chunks - 1].size < CHUNK)
+			last = writable(chunks - 1);
+		else {
+			writableSpine(chunks + 1);
+			last = spine[chunks] = new Chunk(new Item[CHUNK], 0, edit);
+			starts[chunks++] = size;
+		}
+		last.items[last.size++] = someItem;
+		someItem.setPosition(size);
+		itemsChanged(size, size + 1);
+		changeSelected(size++);
+	}
+
+	/**
+	 * Paints the Items that fall inside the area being painted,
+	 * from left to right.
+	 */
+	public void paint(Graphics pane)
+	{
+		int first = 0, last = size;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+									   / Item.OVERALL_WIDTH + 2);
+		}
+		for (int c = first < last ? chunkOf(first) : chunks; c < chunks && starts[c] < last; c++)
+			for (int i = Math.max(first - starts[c], 0);
+				 i < spine[c].size && starts[c] + i < last; i++)
+				spine[c].items[i].paint(pane, x + (starts[c] + i) * Item.OVERALL_WIDTH, y);
+	}
+
+	public boolean hasNext()
+	{
+		return selected > -1;
+	}
+
+	/**
+	 * Returns the selected Item, if any, and selects the one after it.
+	 */
+	public Item next()
+	{
+		Item result = null;
+		if (selected > -1) {
+			result = get(selected);
+			changeSelected(selected + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the selected Item (if any) from its chunk, copying the
+	 * chunk and the spine first if a saved version shares them.
+	 * No Item is selected any more.
+	 */
+	public void remove()
+	{
+		if (selected > -1) {
+			save();
+			int index = selected;
+			changeSelected(-1);
+			int c = chunkOf(index);
+			Chunk chunk = writable(c);
+			int at = index - starts[c];
+			System.arraycopy(chunk.items, at + 1, chunk.items, at, chunk.size - at - 1);
+			chunk.items[--chunk.size] = null;
+			writableSpine(chunks);
+			if (chunk.size == 0) {			//	Drop the empty chunk
+				System.arraycopy(spine, c + 1, spine, c, chunks - c - 1);
+				System.arraycopy(starts, c + 1, starts, c, chunks - c - 1);
+				spine[--chunks] = null;
+			}
+			else
+				c++;
+			for (; c < chunks; c++)			//	The later chunks start one sooner
+				starts[c]--;
+			size--;
+			itemsChanged(index, size + 1);	//	The rest moved left
+		}
+	}
+
+	/**
+	 * Returns a new array holding the Items of the collection, in order.
+	 */
+	public Item [] toArray()
+	{
+		Item [] result = new Item[size];
+		for (int c = 0; c < chunks; c++)
+			System.arraycopy(spine[c].items, 0, result, starts[c], spine[c].size);
+		return result;
+	}
+
+	/**
+	 * Puts the Items in the order of the given array, which must hold
+	 * exactly the Items of the collection, changing only the chunks
+	 * whose Items moved. No Item is selected any more.
+	 */
+	public void setOrder(Item [] someItems)
+	{
+		if (someItems.length != size)
+			throw new IllegalArgumentException("Expected " + size + " Items, not "
+											   + someItems.length);
+		changeSelected(-1);
+		if (reorder(someItems))
+			itemsChanged(0, size);
+	}
+
+	/**
+	 * Sorts the Items from smallest to largest with the given strategy,
+	 * changing only the chunks whose Items moved and leaving saved
+	 * versions as they were. No Item is selected any more.
+	 */
+	public void sortInPlace(SortStrategy strategy)
+	{
+		changeSelected(-1);
+		Item [] items = toArray();
+		strategy.sort(items, 0, items.length);
+		if (reorder(items))
+			itemsChanged(0, size);
+	}
+
+}	// end PersistentDataCollection
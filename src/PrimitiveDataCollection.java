@@ -0,0 +1,335 @@
+import java.awt.*;
+import java.util.*;
+
+/**
+ * A DataCollection that keeps no Item objects at all: the values of the
+ * Items are kept in one array of ints, their colors in another (as
+ * packed ARGB ints) and their highlighting in a set of bits.
+ * That takes a few bytes per Item instead of a whole object, and lets
+ * scans and sorts run straight through the arrays.
+ * The Items handed out are ItemViews, made when asked for; painting
+ * makes none.
+ */
+public class PrimitiveDataCollection extends AbstractDataCollection
+{
+	/**
+	 * Hold the values and the colors of the Items
+	 */
+	private int [] values, colors;
+
+	/**
+	 * The number of Items currently in the collection
+	 */
+	private int size;
+
+	/**
+	 * The lower left point of the first Item in the collection
+	 */
+	private int x, y;
+
+	/**
+	 * The index where the selected Item is, or -1 if none is selected
+	 */
+	private int selected = -1;
+
+	/**
+	 * The indices of the Items highlighted all together, if any;
+	 * the selected Item is highlighted without being in the set, so
+	 * selecting as Items are added never touches it
+	 */
+	private BitSet highlighted;
+
+	/**
+	 * The colors made so far, by their ARGB value
+	 */
+	private Map<Integer, Color> palette = new HashMap<Integer, Color>();
+
+	/**
+	 * Sets initial capacity to 16 Items; none are in the collection,
+	 * none are selected.
+	 * @param someX left
+	 * @param someY bottom
+	 */
+	public PrimitiveDataCollection(int someX, int someY)
+	{
+		values = new int[16];
+		colors = new int[16];
+		x = someX;
+		y = someY;
+	}
+
+	/**
+	 * Selects the Item at the given index, or nothing if the index is -1
+	 * or past the end, clearing any other highlighting.
+	 */
+	private void changeSelected(int newSelected)
+	{
+		if (highlighted != null) {
+			highlighted = null;
+			highlightChanged(0, size);
+		}
+		if (selected != -1) {				//	Told once it is no longer selected
+			int old = selected;
+			selected = -1;
+			highlightChanged(old, old + 1);
+		}
+		if (newSelected != -1 && newSelected < size) {
+			selected = newSelected;
+			highlightChanged(selected, selected + 1);
+		}
+	}
+
+	/**
+	 * Returns the Color with the given ARGB value.
+	 */
+	private Color color(int argb)
+	{
+		Color result = palette.get(argb);
+		if (result == null) {
+			result = new Color(argb, true);
+			palette.put(argb, result);
+		}
+		return result;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public Item get(int index)
+	{
+		checkIndex(index);
+		return new ItemView(this, index, values[index], color(colors[index]));
+	}
+
+	public int getValue(int index)
+	{
+		checkIndex(index);
+		return values[index];
+	}
+
+	/**
+	 * Looks through the values, in parallel chunks when there are many,
+	 * for the left-most tallest one.
+	 */
+	public int indexOfMaximum()
+	{
+		return getScanner().indexesOfExtremes(this)[1];
+	}
+
+	/**
+	 * Looks through the values, in parallel chunks when there are many,
+	 * for the left-most shortest one.
+	 */
+	public int indexOfMinimum()
+	{
+		return getScanner().indexesOfExtremes(this)[0];
+	}
+
+	public void reset()
+	{
+		changeSelected(0);
+	}
+
+	/**
+	 * Defines the selected Item to be the given Item, if it is a view
+	 * that came from this collection.
+	 */
+	public void reset(Item someItem)
+	{
+		changeSelected(-1);
+		if (someItem instanceof ItemView && ((ItemView) someItem).belongsTo(this))
+			changeSelected(((ItemView) someItem).getIndex());
+	}
+
+	/**
+	 * Highlights all of the given Items, which must be views that came
+	 * from this collection, until the selected Item changes.
+	 * No Item is selected.
+	 */
+	public void highlight(Item [] someItems)
+	{
+		changeSelected(-1);
+		highlighted = new BitSet();
+		for (int i = 0; i < someItems.length; i++) {
+			if (someItems[i] instanceof ItemView && ((ItemView) someItems[i]).belongsTo(this)) {
+				int index = ((ItemView) someItems[i]).getIndex();
+				if (index < size)
+					highlighted.set(index);
+			}
+		}
+		highlightChanged(0, size);
+	}
+
+	/**
+	 * Adds the value and color of the given Item to the collection.
+	 * That Item becomes the Item currently selected.
+	 */
+	public void add(Item someItem)
+	{
+		ensureCapacity(size + 1);
+		values[size] = someItem.getValue();
+		colors[size] = someItem.getColor() == null ? 0 : someItem.getColor().getRGB();
+		itemsChanged(size, size + 1);
+		changeSelected(size++);
+	}
+
+	/**
+	 * Adds the values of the given Items, all of the given color, with
+	 * one copy and no Items made, growing the arrays at most once.
+	 * The last of them becomes the Item currently selected.
+	 */
+	public void addAll(int [] someValues, Color someColor)
+	{
+		if (someValues.length == 0)
+			return;
+		ensureCapacity(size + someValues.length);
+		System.arraycopy(someValues, 0, values, size, someValues.length);
+		Arrays.fill(colors, size, size + someValues.length,
+					someColor == null ? 0 : someColor.getRGB());
+		size += someValues.length;
+		itemsChanged(size - someValues.length, size);
+		changeSelected(size - 1);
+	}
+
+	/**
+	 * Makes room for at least the given number of Items, at least
+	 * doubling the arrays when they have to grow.
+	 */
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity > values.length) {
+			capacity = Math.max(capacity, values.length * 2);
+			int [] temp = new int[capacity];
+			System.arraycopy(values, 0, temp, 0, size);
+			values = temp;
+			temp = new int[capacity];
+			System.arraycopy(colors, 0, temp, 0, size);
+			colors = temp;
+		}
+	}
+
+	/**
+	 * Paints the Items that fall inside the area being painted,
+	 * from left to right.
+	 */
+	public void paint(Graphics pane)
+	{
+		int first = 0, last = size;
+		Rectangle clip = pane.getClipBounds();
+		if (clip != null) {					// Only paint what shows
+			first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+			last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+									   / Item.OVERALL_WIDTH + 2);
+		}
+		Item bar = new Item();
+		for (int i = first; i < last; i++) {
+			bar.setup(0, 0, values[i], color(colors[i]));
+			bar.highlight(i == selected || (highlighted != null && highlighted.get(i)));
+			bar.paint(pane, x + i * Item.OVERALL_WIDTH, y);
+		}
+	}
+
+	public boolean hasNext()
+	{
+		return selected > -1;
+	}
+
+	/**
+	 * Looks the position up in the selection and the highlighted set,
+	 * since there are no Items to ask.
+	 */
+	public boolean isHighlighted(int index)
+	{
+		checkIndex(index);
+		return index == selected || (highlighted != null && highlighted.get(index));
+	}
+
+	/**
+	 * Returns a view of the selected Item (if any Item is selected)
+	 * and selects the next one, if there is one.
+	 * @return selected Item or null, if no Item is selected
+	 */
+	public Item next()
+	{
+		Item result = null;
+		if (selected > -1) {
+			result = get(selected);
+			changeSelected(selected + 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the selected Item (if any).
+	 * No Item is selected any more.
+	 */
+	public void remove()
+	{
+		if (selected > -1) {
+			int index = selected;
+			changeSelected(-1);
+			System.arraycopy(values, index + 1, values, index, size - index - 1);
+			System.arraycopy(colors, index + 1, colors, index, size - index - 1);
+			size--;
+			itemsChanged(index, size + 1);	//	The rest moved left
+		}
+	}
+
+	/**
+	 * Writes the values and colors of the given Items over those of
+	 * the collection, in order. No Item is selected any more.
+	 */
+	public void setOrder(Item [] someItems)
+	{
+		if (someItems.length != size)
+			throw new IllegalArgumentException("Expected " + size + " Items, not "
+											   + someItems.length);
+		changeSelected(-1);
+		for (int i = 0; i < size; i++) {
+			values[i] = someItems[i].getValue();
+			colors[i] = someItems[i].getColor() == null ? 0 : someItems[i].getColor().getRGB();
+		}
+		itemsChanged(0, size);
+	}
+
+	/**
+	 * Determines whether the given strategy sorts the collection straight
+	 * on its arrays, making no Items.
+	 */
+	public static boolean sortsArrays(SortStrategy strategy)
+	{
+		return strategy instanceof CountingSorter || strategy instanceof RadixSorter
+			|| strategy instanceof MergeSorter || strategy instanceof InsertionSorter;
+	}
+
+	/**
+	 * Sorts the Items from smallest to largest. Counting, radix and
+	 * insertion sorts, and merge sorts of every kind (each the way it
+	 * sorts Items, natural and parallel ones included), run straight on
+	 * the arrays, carrying the colors along; any other strategy sorts
+	 * views of the Items, which are then written back.
+	 * No Item is selected any more.
+	 */
+	public void sortInPlace(SortStrategy strategy)
+	{
+		changeSelected(-1);
+		if (strategy instanceof CountingSorter)
+			CountingSorter.sort(values, colors, 0, size);
+		else if (strategy instanceof RadixSorter)
+			RadixSorter.sort(values, colors, 0, size);
+		else if (strategy instanceof MergeSorter)
+			((MergeSorter) strategy).sort(values, colors, 0, size);
+		else if (strategy instanceof InsertionSorter)
+			((InsertionSorter) strategy).sort(values, colors, 0, size);
+		else {
+			Item [] items = toArray();
+			strategy.sort(items, 0, size);
+			setOrder(items);				//	Which tells the listener
+			return;
+		}
+		itemsChanged(0, size);
+	}
+
+}	// end PrimitiveDataCollection
@@ -0,0 +1,126 @@
+/**
+ * Sorts a range of an array of Items using least significant digit
+ * radix sort, one byte of the value at a time.
+ * It takes four linear passes at most, whatever the values are,
+ * and skips any pass in which all the Items share the same byte.
+ * The sort is stable.
+ */
+public class RadixSorter implements SortStrategy
+{
+	/**
+	 * Number of bits in a digit, and the number of possible digits
+	 */
+	private static final int BITS = 8, RADIX = 1 << BITS;
+
+	public String getName()
+	{
+		return "Radix";
+	}
+
+	public boolean isStable()
+	{
+		return true;
+	}
+
+	public boolean supportsKeys(int lowest, int highest)
+	{
+		return true;
+	}
+
+	public long getComparisons()
+	{
+		return 0;							// Never compares two Items
+	}
+
+	public SortStrategy newInstance()
+	{
+		return new RadixSorter();
+	}
+
+	public void sort(Item [] items, int from, int to)
+	{
+		int length = to - from;
+		if (length < 2)
+			return;
+
+		Item [] source = new Item[length], destination = new Item[length];
+		System.arraycopy(items, from, source, 0, length);
+		int [] counts = new int[RADIX + 1];
+
+		for (int shift = 0; shift < 32; shift += BITS) {
+			java.util.Arrays.fill(counts, 0);
+			for (int i = 0; i < length; i++)	// Count every digit
+				counts[digit(source[i], shift) + 1]++;
+			if (counts[digit(source[0], shift) + 1] == length)
+				continue;						// All the same, nothing to do
+			for (int k = 1; k <= RADIX; k++)	// Where each digit begins
+				counts[k] += counts[k - 1];
+			for (int i = 0; i < length; i++)
+				destination[counts[digit(source[i], shift)]++] = source[i];
+
+			Item [] temp = source;				// The result is the next source
+			source = destination;
+			destination = temp;
+		}
+		System.arraycopy(source, 0, items, from, length);
+	}
+
+	/**
+	 * Sorts the range [from, to) of the given keys, moving the
+	 * satellite values along with their keys.
+	 */
+	public static void sort(int [] keys, int [] satellite, int from, int to)
+	{
+		int length = to - from;
+		if (length < 2)
+			return;
+
+		int [] sourceKeys = new int[length], destinationKeys = new int[length];
+		int [] source = new int[length], destination = new int[length];
+		System.arraycopy(keys, from, sourceKeys, 0, length);
+		System.arraycopy(satellite, from, source, 0, length);
+		int [] counts = new int[RADIX + 1];
+
+		for (int shift = 0; shift < 32; shift += BITS) {
+			java.util.Arrays.fill(counts, 0);
+			for (int i = 0; i < length; i++)	// Count every digit
+				counts[digit(sourceKeys[i], shift) + 1]++;
+			if (counts[digit(sourceKeys[0], shift) + 1] == length)
+				continue;						// All the same, nothing to do
+			for (int k = 1; k <= RADIX; k++)	// Where each digit begins
+				counts[k] += counts[k - 1];
+			for (int i = 0; i < length; i++) {
+				int at = counts[digit(sourceKeys[i], shift)]++;
+				destinationKeys[at] = sourceKeys[i];
+				destination[at] = source[i];
+			}
+
+			int [] temp = sourceKeys;			// The result is the next source
+			sourceKeys = destinationKeys;
+			destinationKeys = temp;
+			temp = source;
+			source = destination;
+			destination = temp;
+		}
+		System.arraycopy(sourceKeys, 0, keys, from, length);
+		System.arraycopy(source, 0, satellite, from, length);
+	}
+
+	/**
+	 * Returns the digit of the value of the given Item at the given
+	 * shift. The sign bit is flipped so negative values come first.
+	 */
+	private static int digit(Item someItem, int shift)
+	{
+		return digit(someItem.getValue(), shift);
+	}
+
+	/**
+	 * Returns the digit of the given value at the given shift.
+	 */
+	private static int digit(int value, int shift)
+	{
+		return ((value ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+	}
+
+}	// end RadixSorter
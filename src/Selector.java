@@ -0,0 +1,187 @@
+import java.util.*;
+
+/**
+ * Finds Items by rank without sorting the whole collection.
+ * The k-th smallest Item (and so the median) is found by introselect:
+ * quickselect with a median of three pivot and a three-way partition,
+ * which takes expected linear time and copes well with many equal
+ * values. Should the partitions keep coming out lopsided, it sorts
+ * what is left instead, so it never takes more than n log n time.
+ * The largest k Items are found with a heap holding at most k Items,
+ * in time proportional to n log k.
+ * Collections are searched through their values only, so that a
+ * collection need not make an Item for every position (a collection
+ * kept on disk cannot).
+ */
+public class Selector
+{
+	/**
+	 * Ranges this short are insertion sorted rather than partitioned
+	 */
+	private static final int SMALL = 16;
+
+	/**
+	 * Nothing to instantiate
+	 */
+	private Selector() {}
+
+	/**
+	 * Returns the position of the k-th smallest Item (counting from 0) of
+	 * the given collection. Among equal Items, those further left count
+	 * as smaller, as a stable sort would put them.
+	 * Only the values are read, into an array of ints, so the collection
+	 * and its selection do not change.
+	 */
+	public static int indexOf(DataCollection items, int k)
+	{
+		int length = items.size();
+		if (k < 0 || k >= length)
+			throw new IndexOutOfBoundsException("No Item of rank " + k);
+		int [] values = new int[length];
+		for (int i = 0; i < length; i++)
+			values[i] = items.getValue(i);
+		int value = select(values, 0, length, k);
+
+		int rank = k;							// Among the Items of that value
+		for (int i = 0; i < length; i++)
+			if (values[i] < value)
+				rank--;
+		for (int i = 0; i < length; i++)
+			if (items.getValue(i) == value && rank-- == 0)
+				return i;
+		throw new IllegalStateException("The collection changed while searched");
+	}
+
+	/**
+	 * Returns the k-th smallest value (counting from 0) of the range
+	 * [from, to) of the given array, rearranging the range so that
+	 * smaller values come before it and larger values after it.
+	 */
+	public static int select(int [] values, int from, int to, int k)
+	{
+		if (k < 0 || k >= to - from)
+			throw new IndexOutOfBoundsException("No value of rank " + k);
+
+		int target = from + k;
+		int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+		while (to - from > SMALL && depthLimit-- > 0) {
+			int pivot = medianOfThree(values[from], values[(from + to) >>> 1], values[to - 1]);
+			int less = from, i = from, greater = to - 1;
+			while (i <= greater) {				// Three-way partition
+				if (values[i] < pivot)
+					swap(values, less++, i++);
+				else if (values[i] > pivot)
+					swap(values, i, greater--);
+				else
+					i++;
+			}
+
+			if (target < less)
+				to = less;
+			else if (target > greater)
+				from = greater + 1;
+			else
+				return pivot;
+		}
+		Arrays.sort(values, from, to);			// Short, or too many bad pivots
+		return values[target];
+	}
+
+	/**
+	 * Returns the k largest Items of the given collection, largest first.
+	 * Among equal Items, those further left count as larger.
+	 * The collection is only read, so its selection does not change.
+	 */
+	public static Item [] largest(DataCollection items, int k)
+	{
+		int length = items.size();
+		k = Math.max(0, Math.min(k, length));
+		int [] heap = new int[k];				// The smallest of the k largest
+		int [] positions = new int[k];			//		so far is at the top
+		int size = 0;
+
+		for (int i = 0; i < length; i++) {		// Only values are read
+			int value = items.getValue(i);
+			if (size < k) {
+				heap[size] = value;
+				positions[size] = i;
+				siftUp(heap, positions, size++);
+			}
+			else if (k > 0 && before(heap[0], positions[0], value, i)) {
+				heap[0] = value;				// Replace the smallest
+				positions[0] = i;
+				siftDown(heap, positions, 0, size);
+			}
+		}
+
+		Item [] result = new Item[size];		// Take them out smallest first
+		while (size > 0) {
+			result[size - 1] = items.get(positions[0]);
+			heap[0] = heap[--size];
+			positions[0] = positions[size];
+			siftDown(heap, positions, 0, size);
+		}
+		return result;
+	}
+
+	/**
+	 * Determines whether the first value, at the first position, ranks
+	 * below the second value, at the second position.
+	 */
+	private static boolean before(int first, int firstPosition,
+								  int second, int secondPosition)
+	{
+		return first < second || (first == second && firstPosition > secondPosition);
+	}
+
+	/**
+	 * Moves the value at position i of the heap up past larger parents.
+	 */
+	private static void siftUp(int [] heap, int [] positions, int i)
+	{
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (! before(heap[i], positions[i], heap[parent], positions[parent]))
+				break;
+			swap(heap, i, parent);
+			swap(positions, i, parent);
+			i = parent;
+		}
+	}
+
+	/**
+	 * Moves the value at position i of the heap down past smaller children.
+	 */
+	private static void siftDown(int [] heap, int [] positions, int i, int size)
+	{
+		while (2 * i + 1 < size) {
+			int child = 2 * i + 1;
+			if (child + 1 < size
+				&& before(heap[child + 1], positions[child + 1], heap[child], positions[child]))
+				child++;
+			if (! before(heap[child], positions[child], heap[i], positions[i]))
+				break;
+			swap(heap, i, child);
+			swap(positions, i, child);
+			i = child;
+		}
+	}
+
+	/**
+	 * Returns the middle one of three values.
+	 */
+	private static int medianOfThree(int a, int b, int c)
+	{
+		if (a < b)
+			return b < c ? b : (a < c ? c : a);
+		return a < c ? a : (b < c ? c : b);
+	}
+
+	private static void swap(int [] values, int i, int j)
+	{
+		int temp = values[i];
+		values[i] = values[j];
+		values[j] = temp;
+	}
+
+}	// end Selector
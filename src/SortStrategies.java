@@ -0,0 +1,81 @@
+import java.util.*;
+
+/**
+ * Keeps the list of SortStrategies a SortableDataOrganizer can
+ * choose from. New strategies can be registered at any time;
+ * the first one registered is the default.
+ * The registered strategies are shared, so they only serve for their
+ * names and settings; every sort gets a new instance of its own,
+ * since strategies keep their counters and buffers while they sort.
+ */
+public class SortStrategies
+{
+	/**
+	 * The registered strategies, in the order they were registered
+	 */
+	private static List<SortStrategy> strategies = new ArrayList<SortStrategy>();
+
+	static {
+		register(new MergeSorter());
+		register(new ParallelMergeSorter(ParallelMergeSorter.THRESHOLD));
+		register(new CountingSorter());
+		register(new RadixSorter());
+		register(new InsertionSorter());
+		register(new HybridSorter());
+		register(new NaturalMergeSorter());
+	}
+
+	/**
+	 * Nothing to instantiate; everything is shared
+	 */
+	private SortStrategies() {}
+
+	/**
+	 * Adds the given strategy to the end of the list.
+	 */
+	public static synchronized void register(SortStrategy strategy)
+	{
+		strategies.add(strategy);
+	}
+
+	/**
+	 * Replaces the registered strategy with the same name as the
+	 * given one, or registers it if there is none.
+	 */
+	public static synchronized void replace(SortStrategy strategy)
+	{
+		for (int i = 0; i < strategies.size(); i++) {
+			if (strategies.get(i).getName().equals(strategy.getName())) {
+				strategies.set(i, strategy);
+				return;
+			}
+		}
+		strategies.add(strategy);
+	}
+
+	/**
+	 * Returns the number of registered strategies.
+	 */
+	public static synchronized int size()
+	{
+		return strategies.size();
+	}
+
+	/**
+	 * Returns the strategy at the given position of the list.
+	 */
+	public static synchronized SortStrategy get(int index)
+	{
+		return strategies.get(index);
+	}
+
+	/**
+	 * Returns a new instance of the strategy at the given position of
+	 * the list, for one sort.
+	 */
+	public static synchronized SortStrategy newInstance(int index)
+	{
+		return strategies.get(index).newInstance();
+	}
+
+}	// end SortStrategies
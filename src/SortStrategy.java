@@ -0,0 +1,43 @@
+/**
+ * This interface allows different sorting algorithms to be used
+ * to sort a range of an array of Items from smallest to largest.
+ * Each strategy tells whether it keeps Items of equal value in the
+ * order they had (whether it is stable) and which values it can sort.
+ */
+public interface SortStrategy
+{
+	/**
+	 * Returns a short name for the strategy, fit for a button label.
+	 */
+	public String getName();
+
+	/**
+	 * Determines whether Items of equal value keep the order they had.
+	 */
+	public boolean isStable();
+
+	/**
+	 * Determines whether the strategy can sort Items whose values
+	 * all lie between lowest and highest (both inclusive).
+	 */
+	public boolean supportsKeys(int lowest, int highest);
+
+	/**
+	 * Returns the number of comparisons between Items made by the
+	 * last sort, or 0 if the strategy does not compare Items.
+	 */
+	public long getComparisons();
+
+	/**
+	 * Returns a new strategy of the same kind and settings that shares
+	 * nothing with this one, so that each sort can have its own.
+	 */
+	public SortStrategy newInstance();
+
+	/**
+	 * Sorts the Items in positions from (inclusive) to to (exclusive)
+	 * of the given array from smallest to largest.
+	 */
+	public void sort(Item [] items, int from, int to);
+
+}
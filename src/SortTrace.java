@@ -0,0 +1,376 @@
+import java.util.*;
+
+/**
+ * Records what a sort does to an array of Items, so that the sort can
+ * be replayed (for instance animated) without running it again.
+ * The trace keeps the values the Items had when the sort began, then
+ * one event per comparison, move or write, packed into as few bytes as
+ * it needs. Sorts work on neighbouring positions and values step after
+ * step, so each event is kept as how far its position and its operand
+ * are from those of the last event of the same kind: one byte holds
+ * the kind and both distances when they are within three either way,
+ * and a distance that is farther follows that byte, seven bits a byte.
+ * Most events take a single byte.
+ * The bytes are kept in blocks, so a long trace never has to be copied
+ * to grow. Every so many events the distances start over from zero,
+ * so the events can be read from there without reading those before.
+ */
+public class SortTrace
+{
+	/**
+	 * The kinds of events:
+	 * COMPARE compares the Items at a position and at the operand position,
+	 * MOVE copies the Item at the operand position to a position, and
+	 * WRITE puts an Item with the operand value at a position.
+	 */
+	public static final int COMPARE = 0, MOVE = 1, WRITE = 2;
+
+	/**
+	 * The largest number of Items that can be traced
+	 */
+	public static final int MAXIMUM_ITEMS = 1 << 30;
+
+	/**
+	 * Number of events between the points the events can be read from
+	 */
+	public static final int SYNC = 1 << 16;
+
+	/**
+	 * Number of bytes in a block, as a power of two
+	 */
+	private static final int BLOCK_BITS = 16, BLOCK = 1 << BLOCK_BITS;
+
+	/**
+	 * In the first byte of an event, the distance that says the real
+	 * distance follows
+	 */
+	private static final int FAR = 7;
+
+	/**
+	 * The values of the Items when the sort began
+	 */
+	private int [] initial;
+
+	/**
+	 * The blocks of bytes; only the first blocks are in use
+	 */
+	private byte [][] blocks = new byte[16][];
+
+	/**
+	 * The number of bytes used
+	 */
+	private long length;
+
+	/**
+	 * Where the events at the multiples of SYNC begin, in bytes
+	 */
+	private long [] syncs = new long[16];
+
+	/**
+	 * The number of events recorded
+	 */
+	private int size;
+
+	/**
+	 * The position and the operand of the last event of every kind
+	 */
+	private int [] lastPositions = new int[3], lastOperands = new int[3];
+
+	/**
+	 * Starts a new trace of a sort of the given range of Items.
+	 * Positions in the events are counted from the start of the range.
+	 */
+	public void begin(Item [] items, int from, int to)
+	{
+		if (to - from > MAXIMUM_ITEMS)
+			throw new IllegalArgumentException("Too many Items to trace");
+		initial = new int[to - from];
+		for (int i = from; i < to; i++)
+			initial[i - from] = items[i].getValue();
+		blocks = new byte[16][];
+		syncs = new long[16];
+		length = 0;
+		size = 0;
+	}
+
+	/**
+	 * Records a comparison of the Items at the two positions.
+	 */
+	public void compare(int first, int second)
+	{
+		record(COMPARE, first, second);
+	}
+
+	/**
+	 * Records a copy of the Item at position from to position to.
+	 */
+	public void move(int to, int from)
+	{
+		record(MOVE, to, from);
+	}
+
+	/**
+	 * Records that an Item of the given value was put at the position.
+	 */
+	public void write(int position, int value)
+	{
+		record(WRITE, position, value);
+	}
+
+	/**
+	 * Packs an event and adds it to the last block.
+	 */
+	private void record(int kind, int position, int operand)
+	{
+		if (size % SYNC == 0) {					// Start the distances over
+			int sync = size / SYNC;
+			if (sync == syncs.length) {
+				long [] temp = new long[syncs.length * 2];
+				System.arraycopy(syncs, 0, temp, 0, syncs.length);
+				syncs = temp;
+			}
+			syncs[sync] = length;
+			Arrays.fill(lastPositions, 0);
+			Arrays.fill(lastOperands, 0);
+		}
+		int positionDistance = zigzag(position - lastPositions[kind]),
+			operandDistance = zigzag(operand - lastOperands[kind]);
+		lastPositions[kind] = position;
+		lastOperands[kind] = operand;
+
+		boolean farPosition = isFar(positionDistance), farOperand = isFar(operandDistance);
+		put(kind << 6 | (farPosition ? FAR : positionDistance) << 3
+			| (farOperand ? FAR : operandDistance));
+		if (farPosition)
+			putFar(positionDistance);
+		if (farOperand)
+			putFar(operandDistance);
+		size++;
+	}
+
+	/**
+	 * Turns a distance into a number that is small when the distance
+	 * is small, whatever its sign: 0, -1, 1, -2, 2... become 0, 1, 2, 3, 4...
+	 */
+	private static int zigzag(int distance)
+	{
+		return (distance << 1) ^ (distance >> 31);
+	}
+
+	/**
+	 * Determines whether a zigzagged distance does not fit in the first
+	 * byte (the largest ones look negative).
+	 */
+	private static boolean isFar(int distance)
+	{
+		return distance < 0 || distance >= FAR;
+	}
+
+	/**
+	 * Adds a distance seven bits a byte, the lowest first, the high
+	 * bit of a byte telling whether another one follows.
+	 */
+	private void putFar(int distance)
+	{
+		while ((distance & ~0x7F) != 0) {
+			put(distance & 0x7F | 0x80);
+			distance >>>= 7;
+		}
+		put(distance);
+	}
+
+	/**
+	 * Adds a byte to the last block.
+	 */
+	private void put(int someByte)
+	{
+		int block = (int) (length >>> BLOCK_BITS);
+		if (block == blocks.length) {			// Room for more blocks
+			byte [][] temp = new byte[blocks.length * 2][];
+			System.arraycopy(blocks, 0, temp, 0, blocks.length);
+			blocks = temp;
+		}
+		if (blocks[block] == null)
+			blocks[block] = new byte[BLOCK];
+		blocks[block][(int) length & (BLOCK - 1)] = (byte) someByte;
+		length++;
+	}
+
+	/**
+	 * Returns the number of Items that were sorted.
+	 */
+	public int getLength()
+	{
+		return initial == null ? 0 : initial.length;
+	}
+
+	/**
+	 * Returns a copy of the values the Items had before the sort.
+	 */
+	public int [] getInitialValues()
+	{
+		int [] result = new int[getLength()];
+		if (initial != null)
+			System.arraycopy(initial, 0, result, 0, initial.length);
+		return result;
+	}
+
+	/**
+	 * Returns the number of events recorded.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the number of bytes the events take.
+	 */
+	public long getBytes()
+	{
+		return length;
+	}
+
+	/**
+	 * Returns a reader of the events from the given step on.
+	 * Steps that are multiples of SYNC are found at once; others take
+	 * reading the events before them since the last such multiple.
+	 */
+	public Reader reader(int step)
+	{
+		if (step < 0 || step > size)
+			throw new IndexOutOfBoundsException("No step " + step);
+		Reader result = new Reader(step / SYNC * SYNC);
+		while (result.step < step)
+			result.next();
+		return result;
+	}
+
+	/**
+	 * Reads the events of the trace one after the other.
+	 */
+	public class Reader
+	{
+		/**
+		 * The number of events read, and where the next one begins
+		 */
+		private int step;
+		private long at;
+
+		/**
+		 * The last event read
+		 */
+		private int kind, position, operand;
+
+		/**
+		 * The position and the operand of the last event of every kind
+		 */
+		private int [] lastPositions = new int[3], lastOperands = new int[3];
+
+		/**
+		 * Starts at the given multiple of SYNC.
+		 */
+		private Reader(int someStep)
+		{
+			step = someStep;
+			at = step < size ? syncs[step / SYNC] : length;
+		}
+
+		/**
+		 * Returns the number of events read so far, which is also the
+		 * step the next event is at.
+		 */
+		public int getStep()
+		{
+			return step;
+		}
+
+		/**
+		 * Determines whether there are events left to read.
+		 */
+		public boolean hasNext()
+		{
+			return step < size;
+		}
+
+		/**
+		 * Reads the next event.
+		 */
+		public void next()
+		{
+			if (step >= size)
+				throw new IndexOutOfBoundsException("No step " + step);
+			if (step % SYNC == 0) {				// The distances start over
+				Arrays.fill(lastPositions, 0);
+				Arrays.fill(lastOperands, 0);
+			}
+			int first = get();
+			kind = first >>> 6;
+			int positionDistance = first >>> 3 & FAR, operandDistance = first & FAR;
+			if (positionDistance == FAR)
+				positionDistance = getFar();
+			if (operandDistance == FAR)
+				operandDistance = getFar();
+			position = lastPositions[kind] += unzigzag(positionDistance);
+			operand = lastOperands[kind] += unzigzag(operandDistance);
+			step++;
+		}
+
+		/**
+		 * Returns the kind of the last event read.
+		 */
+		public int kind()
+		{
+			return kind;
+		}
+
+		/**
+		 * Returns the position of the last event read.
+		 */
+		public int position()
+		{
+			return position;
+		}
+
+		/**
+		 * Returns the operand of the last event read.
+		 */
+		public int operand()
+		{
+			return operand;
+		}
+
+		/**
+		 * Undoes zigzag.
+		 */
+		private int unzigzag(int number)
+		{
+			return (number >>> 1) ^ -(number & 1);
+		}
+
+		/**
+		 * Reads a distance kept seven bits a byte.
+		 */
+		private int getFar()
+		{
+			int result = 0;
+			for (int shift = 0; ; shift += 7) {
+				int someByte = get();
+				result |= (someByte & 0x7F) << shift;
+				if ((someByte & 0x80) == 0)
+					return result;
+			}
+		}
+
+		/**
+		 * Reads the next byte.
+		 */
+		private int get()
+		{
+			int result = blocks[(int) (at >>> BLOCK_BITS)][(int) at & (BLOCK - 1)] & 0xFF;
+			at++;
+			return result;
+		}
+	}
+
+}	// end SortTrace
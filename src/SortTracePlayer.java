@@ -0,0 +1,168 @@
+/**
+ * Replays a SortTrace, one step or many at a time, forwards or
+ * backwards, on an array holding the values of the Items.
+ * Every so many steps the player keeps a copy of the values, so that
+ * going back to an earlier step only replays the steps since the
+ * closest copy instead of the whole trace.
+ */
+public class SortTracePlayer
+{
+	/**
+	 * The trace being replayed
+	 */
+	private SortTrace trace;
+
+	/**
+	 * The values of the Items after the current step
+	 */
+	private int [] values;
+
+	/**
+	 * The number of steps replayed so far
+	 */
+	private int step;
+
+	/**
+	 * Reads the events of the steps after the current one
+	 */
+	private SortTrace.Reader reader;
+
+	/**
+	 * The positions of the Items compared last, or -1
+	 */
+	private int comparedFirst = -1, comparedSecond = -1;
+
+	/**
+	 * The number of steps between copies of the values
+	 */
+	private int interval;
+
+	/**
+	 * The copies of the values, checkpoints[k] after k * interval steps
+	 */
+	private int [][] checkpoints;
+
+	/**
+	 * Starts replaying the given trace from its beginning.
+	 */
+	public SortTracePlayer(SortTrace someTrace)
+	{
+		trace = someTrace;
+		values = trace.getInitialValues();
+		interval = Math.max(1, (8 * values.length + SortTrace.SYNC - 1) / SortTrace.SYNC)
+				   * SortTrace.SYNC;			// Keeps the copies few, and easy to read from
+		reader = trace.reader(0);
+		checkpoints = new int[trace.size() / interval + 1][];
+		checkpoints[0] = trace.getInitialValues();
+	}
+
+	/**
+	 * Returns the number of Items being sorted.
+	 */
+	public int getLength()
+	{
+		return values.length;
+	}
+
+	/**
+	 * Returns the number of steps in the trace.
+	 */
+	public int getSteps()
+	{
+		return trace.size();
+	}
+
+	/**
+	 * Returns the number of steps replayed so far.
+	 */
+	public int getStep()
+	{
+		return step;
+	}
+
+	/**
+	 * Determines whether every step has been replayed.
+	 */
+	public boolean isFinished()
+	{
+		return step == trace.size();
+	}
+
+	/**
+	 * Returns the value of the Item at the given position
+	 * after the current step.
+	 */
+	public int getValue(int position)
+	{
+		return values[position];
+	}
+
+	/**
+	 * Determines whether the Item at the given position was part
+	 * of the last comparison replayed.
+	 */
+	public boolean isCompared(int position)
+	{
+		return position == comparedFirst || position == comparedSecond;
+	}
+
+	/**
+	 * Replays the given number of steps forwards (or backwards, if
+	 * negative), stopping at either end of the trace.
+	 */
+	public void advance(int steps)
+	{
+		seek((int) Math.max(0, Math.min(trace.size(), (long) step + steps)));
+	}
+
+	/**
+	 * Goes to the state after the given number of steps.
+	 */
+	public void seek(int target)
+	{
+		if (target < 0 || target > trace.size())
+			throw new IndexOutOfBoundsException("No step " + target);
+
+		if (target < step || target - step > interval) {	// Start from a copy
+			int k = target / interval;
+			while (checkpoints[k] == null)
+				k--;
+			if (k * interval > step || target < step) {
+				System.arraycopy(checkpoints[k], 0, values, 0, values.length);
+				step = k * interval;
+				reader = trace.reader(step);
+				comparedFirst = comparedSecond = -1;
+			}
+		}
+		while (step < target)
+			replay(step++);
+	}
+
+	/**
+	 * Applies the event at the given step, the next one the reader
+	 * reads, to the values, keeping a copy of them whenever a
+	 * checkpoint is reached.
+	 */
+	private void replay(int at)
+	{
+		reader.next();
+		int position = reader.position(), operand = reader.operand();
+		switch (reader.kind()) {
+			case SortTrace.COMPARE:
+				comparedFirst = position;
+				comparedSecond = operand;
+				break;
+			case SortTrace.MOVE:
+				values[position] = values[operand];
+				break;
+			default:
+				values[position] = operand;
+		}
+		if ((at + 1) % interval == 0 && checkpoints[(at + 1) / interval] == null) {
+			int [] copy = new int[values.length];
+			System.arraycopy(values, 0, copy, 0, values.length);
+			checkpoints[(at + 1) / interval] = copy;
+		}
+	}
+
+}	// end SortTracePlayer
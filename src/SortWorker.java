@@ -0,0 +1,379 @@
+/**
+ * Sorts a copy of the Items of a DataCollection on a thread of its own,
+ * so that the AWT event thread stays free while a large collection sorts.
+ * A sequential merge sort is cut into slices: the copy is split into
+ * chunks that are sorted one at a time, and then neighbouring chunks are
+ * merged in rounds. Between slices the worker reports its progress and
+ * checks whether it has been cancelled. Any other strategy sorts the
+ * whole copy at once, since chunking would trade its linear time, its
+ * use of the Workers or its pass over runs already in order for
+ * comparison merges; it can only be cancelled before it starts, and its
+ * result is dropped if it is cancelled while it runs.
+ * The collection itself is not touched; whoever started the worker
+ * hands the sorted Items back to the collection once it has finished.
+ * A collection kept on disk is sorted by an ExternalSorter instead,
+ * into a new file that is handed back the same way, or discarded.
+ */
+public class SortWorker implements Runnable
+{
+	/**
+	 * Receives the news from a SortWorker, on the worker's thread.
+	 */
+	public interface Listener
+	{
+		/**
+		 * The worker has done the given percentage of its work.
+		 */
+		public void progress(SortWorker worker, int percent);
+
+		/**
+		 * The worker has stopped, either sorted or cancelled.
+		 */
+		public void finished(SortWorker worker);
+	}
+
+	/**
+	 * The smallest number of Items sorted in a single slice
+	 */
+	public static final int SLICE = 4096;
+
+	/**
+	 * The largest number of chunks the Items are split into
+	 */
+	private static final int CHUNKS = 64;
+
+	/**
+	 * The collection whose Items are being sorted
+	 */
+	private DataCollection collection;
+
+	/**
+	 * The copy of the Items being sorted, or null for a collection
+	 * kept on disk
+	 */
+	private Item [] items;
+
+	/**
+	 * The file the collection kept on disk was sorted into, and the
+	 * sorter that did it, once done
+	 */
+	private java.io.File sorted;
+	private ExternalSorter externalSorter;
+
+	/**
+	 * What went wrong sorting the collection kept on disk, if anything
+	 */
+	private java.io.IOException failure;
+
+	/**
+	 * Sorts each chunk, or all the Items; the worker's own, which nothing
+	 * else uses, so a cancelled worker finishing its sort disturbs no other
+	 */
+	private SortStrategy strategy;
+
+	/**
+	 * Records the sort for replaying, if not null
+	 */
+	private SortTrace trace;
+
+	/**
+	 * Who to tell about the progress
+	 */
+	private Listener listener;
+
+	/**
+	 * Set to stop the worker at the end of the current slice
+	 */
+	private volatile boolean cancelled;
+
+	/**
+	 * Set once all the Items are in order
+	 */
+	private volatile boolean done;
+
+	/**
+	 * Comparisons made so far, and the time the sort took
+	 */
+	private long comparisons, nanos;
+
+	/**
+	 * Prepares to sort the given Items of the given collection.
+	 * @param someItems a copy of the Items, which the worker reorders
+	 * @param someStrategy a strategy for this worker alone
+	 */
+	public SortWorker(DataCollection someCollection, Item [] someItems,
+					  SortStrategy someStrategy, Listener someListener)
+	{
+		collection = someCollection;
+		items = someItems;
+		strategy = someStrategy;
+		listener = someListener;
+	}
+
+	/**
+	 * Prepares to sort the given collection kept on disk into a new file.
+	 * Values not yet in its file are written out on the calling thread.
+	 * @param someStrategy a strategy for this worker alone, to sort the runs
+	 */
+	public SortWorker(FileDataCollection someCollection,
+					  SortStrategy someStrategy, Listener someListener)
+	{
+		this(someCollection, null, someStrategy, someListener);
+		someCollection.prepareSort();
+	}
+
+	/**
+	 * Has the worker record the sort in the given trace, which it can
+	 * only do if its strategy is a sequential merge sort.
+	 * @return whether the sort will be recorded
+	 */
+	public boolean trace(SortTrace someTrace)
+	{
+		if (! (strategy instanceof MergeSorter) || strategy instanceof ParallelMergeSorter)
+			return false;
+		trace = someTrace;
+		return true;
+	}
+
+	/**
+	 * Returns the trace of the sort, or null if it is not recorded.
+	 */
+	public SortTrace getTrace()
+	{
+		return trace;
+	}
+
+	/**
+	 * Starts sorting on a new thread, which gives way to the
+	 * event thread whenever both want to run.
+	 */
+	public void start()
+	{
+		Thread thread = new Thread(this, "Sorter");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Asks the worker to stop at the end of the current slice.
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	 * Determines whether the worker was asked to stop.
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Determines whether the worker sorted all the Items.
+	 */
+	public boolean isDone()
+	{
+		return done;
+	}
+
+	/**
+	 * Returns the collection whose Items are being sorted.
+	 */
+	public DataCollection getCollection()
+	{
+		return collection;
+	}
+
+	/**
+	 * Returns the Items, sorted once the worker is done.
+	 */
+	public Item [] getItems()
+	{
+		return items;
+	}
+
+	/**
+	 * Returns the file a collection kept on disk was sorted into, once
+	 * the worker is done, or null.
+	 */
+	public java.io.File getSortedFile()
+	{
+		return sorted;
+	}
+
+	/**
+	 * Returns the sorter that sorted a collection kept on disk, once
+	 * the worker is done, or null.
+	 */
+	public ExternalSorter getExternalSorter()
+	{
+		return externalSorter;
+	}
+
+	/**
+	 * Returns what went wrong sorting a collection kept on disk, or null.
+	 */
+	public java.io.IOException getFailure()
+	{
+		return failure;
+	}
+
+	/**
+	 * Deletes the file a collection kept on disk was sorted into, for
+	 * when it will not be used.
+	 */
+	public void discard()
+	{
+		if (sorted != null)
+			sorted.delete();
+		sorted = null;
+	}
+
+	/**
+	 * Returns the strategy that sorts the Items.
+	 */
+	public SortStrategy getStrategy()
+	{
+		return strategy;
+	}
+
+	/**
+	 * Returns the number of comparisons made so far.
+	 */
+	public long getComparisons()
+	{
+		return comparisons;
+	}
+
+	/**
+	 * Returns how long the sort took, in milliseconds.
+	 */
+	public long getMillis()
+	{
+		return nanos / 1000000;
+	}
+
+	/**
+	 * Sorts the Items, or the collection kept on disk.
+	 */
+	public void run()
+	{
+		long start = System.nanoTime();
+		try {
+			if (items == null)
+				sortFile();
+			else if (sortsInSlices())
+				sortItems();
+			else
+				sortWhole();
+		} finally {
+			nanos = System.nanoTime() - start;
+			listener.finished(this);
+		}
+	}
+
+	/**
+	 * Determines whether the strategy is a sequential merge sort of
+	 * fixed halves, which loses nothing by being cut into slices.
+	 */
+	private boolean sortsInSlices()
+	{
+		return strategy instanceof MergeSorter
+			&& ! (strategy instanceof ParallelMergeSorter)
+			&& ! (strategy instanceof NaturalMergeSorter);
+	}
+
+	/**
+	 * Sorts all the Items with a single sort of the strategy.
+	 */
+	private void sortWhole()
+	{
+		if (cancelled)
+			return;
+		listener.progress(this, 0);
+		if (trace != null)					// Only a natural merge sort is traced here
+			((MergeSorter) strategy).setTrace(trace);
+		strategy.sort(items, 0, items.length);
+		comparisons = strategy.getComparisons();
+		done = ! cancelled;
+	}
+
+	/**
+	 * Sorts the chunks, then merges them, slice by slice.
+	 */
+	private void sortItems()
+	{
+		int length = items.length;
+		int chunks = Math.max(1, Math.min(CHUNKS, length / SLICE));
+		int [] runs = new int[chunks + 1];
+		for (int i = 0; i <= chunks; i++)
+			runs[i] = (int) ((long) length * i / chunks);
+
+		int rounds = 0;						// How many merge rounds to expect
+		for (int count = chunks; count > 1; count = (count + 1) / 2)
+			rounds++;
+		long total = (long) length * (1 + rounds), finished = 0;
+
+		if (trace != null) {				// Positions from the start of items
+			trace.begin(items, 0, length);
+			((MergeSorter) strategy).continueTrace(trace);
+		}
+		for (int i = 0; i < chunks && ! cancelled; i++) {	// Sort the chunks
+			strategy.sort(items, runs[i], runs[i + 1]);
+			comparisons += strategy.getComparisons();
+			finished += runs[i + 1] - runs[i];
+			listener.progress(this, (int) (100 * finished / total));
+		}
+
+		Item [] source = items, destination = new Item[length];
+		while (runs.length > 2 && ! cancelled) {	// Merge them, round by round
+			int count = runs.length - 1;
+			int [] merged = new int[(count + 1) / 2 + 1];
+			for (int i = 0; i < count && ! cancelled; i += 2) {
+				merged[i / 2] = runs[i];
+				int end = Math.min(i + 2, count);
+				comparisons += trace == null
+					? MergeSorter.merge(source, runs[i], runs[i + 1], runs[i + 1], runs[end],
+										destination, runs[i])
+					: MergeSorter.merge(source, runs[i], runs[i + 1], runs[i + 1], runs[end],
+										destination, runs[i], trace);
+				finished += runs[end] - runs[i];
+				listener.progress(this, (int) (100 * finished / total));
+			}
+			merged[merged.length - 1] = runs[count];
+			runs = merged;
+			Item [] temp = source;
+			source = destination;
+			destination = temp;
+		}
+		items = source;
+		done = ! cancelled;
+	}
+
+	/**
+	 * Sorts the collection kept on disk into a new file, reporting the
+	 * progress of the ExternalSorter and stopping it when cancelled.
+	 */
+	private void sortFile()
+	{
+		ExternalSorter sorter = new ExternalSorter(strategy);
+		sorter.setProgress(new ExternalSorter.Progress() {
+			public boolean progress(int percent) {
+				listener.progress(SortWorker.this, percent);
+				return ! cancelled;
+			}
+		});
+		try {
+			sorted = ((FileDataCollection) collection).sortedCopy(sorter);
+			externalSorter = sorter;
+			done = ! cancelled;
+		} catch (java.io.IOException e) {
+			if (! cancelled)
+				failure = e;
+		}
+	}
+
+}	// end SortWorker
@@ -4,11 +4,124 @@ import java.applet.*;
 
 public class SortableDataOrganizer extends DataOrganizer{
 
+	/**
+	 * Smallest collection sorted in the background, unless the applet
+	 * parameter "backgroundThreshold" says otherwise
+	 */
+	private static final int BACKGROUND_THRESHOLD = 50000;
+
+	/**
+	 * Number of Items highlighted by Top-K, unless the applet
+	 * parameter "topK" says otherwise
+	 */
+	private static final int TOP_K = 3;
+
+	/**
+	 * Largest collection whose sort is traced for replaying, unless
+	 * the applet parameter "traceLimit" says otherwise; a trace takes
+	 * about a byte per event, some 40 MB for a million Items
+	 */
+	private static final int TRACE_LIMIT = 1 << 20;
+
+	/**
+	 * How long a replay of a sort lasts, and how long each frame lasts,
+	 * in milliseconds
+	 */
+	private static final int REPLAY_MILLIS = 10000, FRAME_MILLIS = 40;
+
 	/**
 	 * Sorts the Collection when pressed
 	 */
 	private Abutton sortButton;
+
+	/**
+	 * Switches to the next registered sorting strategy
+	 */
+	private Abutton strategyButton;
+
+	/**
+	 * Position in SortStrategies of the strategy Sort uses
+	 */
+	private int strategy;
+
+	/**
+	 * Smallest collection sorted in the background
+	 */
+	private int backgroundThreshold;
+
+	/**
+	 * The sort running in the background, if any
+	 */
+	private SortWorker sortWorker;
+
+	/**
+	 * Replays the last sort when pressed
+	 */
+	private Abutton replayButton;
+
+	/**
+	 * Largest collection whose sort is traced
+	 */
+	private int traceLimit;
+
+	/**
+	 * What the last traced sort did, if any
+	 */
+	private SortTrace lastTrace;
+
+	/**
+	 * The replay being shown instead of the collection, if any
+	 */
+	private volatile SortTracePlayer replay;
+
+	/**
+	 * Select the median, the k-th smallest or the largest Items
+	 */
+	private Abutton medianButton, kthButton, topKButton;
+
+	/**
+	 * Rank (from 1) of the Item K-th selects next
+	 */
+	private int k = 1;
+
+	/**
+	 * Number of Items Top-K selects
+	 */
+	private int topK;
+
+	/**
+	 * Go back to the version before the last change, or forward again
+	 */
+	private Abutton undoButton, redoButton;
 	
+	/**
+	 * Passes the news from the background sort on to the event thread.
+	 */
+	private SortWorker.Listener sortListener = new SortWorker.Listener() {
+		private int lastPercent = -1;
+
+		public void progress(final SortWorker worker, final int percent) {
+			if (percent != lastPercent) {
+				lastPercent = percent;
+				EventQueue.invokeLater(new Runnable() {
+					public void run() {
+						if (worker == sortWorker)
+							theApplet.showStatus("Sorting... " + percent + "%");
+					}
+				});
+			}
+		}
+
+		public void finished(final SortWorker worker) {
+			lastPercent = -1;
+			EventQueue.invokeLater(new Runnable() {
+				public void run() {
+					sortFinished(worker);
+				}
+			});
+		}
+	};
+
 	/**
 	 * Default constructor can't do anything without the applet
 	 */
@@ -35,36 +148,140 @@ public class SortableDataOrganizer extends DataOrganizer{
 
 		y += 1.5*Abutton.BUTTON_HEIGHT;
 		removeButton = new Abutton("Remove", Color.pink, x, y);
-		
+		y += 1.1*Abutton.BUTTON_HEIGHT;
+		insertButton = new Abutton("Insert", Color.pink, x, y);
+
 		y += 1.1*Abutton.BUTTON_HEIGHT;
 		sortButton = new Abutton("Sort", Color.yellow, x, y);
+		y += 1.1*Abutton.BUTTON_HEIGHT;
+		strategyButton = new Abutton(SortStrategies.get(strategy).getName(),
+									 Color.yellow, x, y);
+		y += 1.1*Abutton.BUTTON_HEIGHT;
+		replayButton = new Abutton("Replay", Color.yellow, x, y);
+
+		SortStrategies.replace(new ParallelMergeSorter(
+				intParameter("parallelThreshold", ParallelMergeSorter.THRESHOLD)));
+		backgroundThreshold = intParameter("backgroundThreshold", BACKGROUND_THRESHOLD);
+		traceLimit = intParameter("traceLimit", TRACE_LIMIT);
+		scanner = new ParallelScanner(intParameter("scanThreshold", ParallelScanner.THRESHOLD));
+		useSprites();
+
+
+		int columnY = 30;					//	A second column of buttons
+		x += 1.1*Abutton.BUTTON_WIDTH;
+		medianButton = new Abutton("Median", Color.green, x, columnY);
+		columnY += 1.1*Abutton.BUTTON_HEIGHT;
+		kthButton = new Abutton("K-th", Color.green, x, columnY);
+		columnY += 1.1*Abutton.BUTTON_HEIGHT;
+		topKButton = new Abutton("Top-K", Color.green, x, columnY);
+		topK = intParameter("topK", TOP_K);
+
+		columnY += 1.5*Abutton.BUTTON_HEIGHT;
+		undoButton = new Abutton("Undo", Color.pink, x, columnY);
+		columnY += 1.1*Abutton.BUTTON_HEIGHT;
+		redoButton = new Abutton("Redo", Color.pink, x, columnY);
 
+		columnY += 1.5*Abutton.BUTTON_HEIGHT;
+		meanButton = new Abutton("Mean", Color.magenta, x, columnY);
+		columnY += 1.1*Abutton.BUTTON_HEIGHT;
+		varianceButton = new Abutton("Variance", Color.magenta, x, columnY);
+		columnY += 1.1*Abutton.BUTTON_HEIGHT;
+		percentileButton = new Abutton("Percentile", Color.magenta, x, columnY);
 
 		x += 1.5*Abutton.BUTTON_WIDTH;
 		y += 1*Abutton.BUTTON_HEIGHT;
+		envelope = new EnvelopePainter(x, y);
+
+		String dataFile = theApplet.getParameter("dataFile");
+		if (dataFile != null) {				//	Start with a dataset from disk
+			try {
+				collection = new FileDataCollection(new java.io.File(dataFile), x, y);
+				collection.setListener(collectionListener);
+				collection.setScanner(scanner);
+			} catch (java.io.IOException e) {
+				theApplet.showStatus("Cannot load " + dataFile + ": " + e.getMessage());
+			}
+		}
 	}
 	
 	/**
 	 * Sorts the current DataCollection from smallest to largest
-	 * and then selects nothing.
+	 * and then selects nothing. Large collections are sorted in the
+	 * background; while they are, the Sort button cancels the sort.
 	 */
 	public void sortAction() {
-		if (collection != null) {
-			collection.reset();
-			DataCollection sorted = mergeSort(collection);	// Uses merge sort to sort collection
-			sorted.reset();
-			collection= new ArrayDataCollection(x, y);	// Clear the original DataCollection
-			while (sorted.hasNext()) {	// Refill it with the sorted data
-				collection.add(sorted.next());
+		stopReplay();
+		if (sortWorker != null) {
+			cancelSort();
+			theApplet.showStatus("Sort cancelled");
+		}
+		else if (collection != null) {
+			SortStrategy sorter = SortStrategies.newInstance(strategy);	// Ours alone
+			if (collection instanceof FileDataCollection) {	// On disk, always in the background
+				sortWorker = new SortWorker((FileDataCollection) collection, sorter, sortListener);
+				startSort();
+				return;
+			}
+			if (! sorter.supportsKeys(1, MAXIMUM_ITEM_VALUE))
+				sorter = SortStrategies.newInstance(0);	// Fall back on the default
+
+			int size = collection.size();
+			if (size >= backgroundThreshold && ! sortsWithoutItems(collection, sorter)) {
+				sortWorker = new SortWorker(collection, collection.toArray(), sorter, sortListener);
+				if (size <= traceLimit)			// Trace it if we can
+					sortWorker.trace(new SortTrace());
+				startSort();
+				return;
 			}
-			collection.reset(null);						// Select nothing
+
+			SortTrace trace = null;				// Trace it if we can
+			if (size <= traceLimit && sorter instanceof MergeSorter
+				&& ! (sorter instanceof ParallelMergeSorter)) {
+				trace = new SortTrace();
+				((MergeSorter) sorter).setTrace(trace);
+			}
+
+			long start = System.nanoTime();
+			saveVersion();
+			try {
+				collection.sortInPlace(sorter);
+			} catch (UnsupportedOperationException e) {	// Cannot reorder itself
+				sortByCursor();
+				theApplet.showStatus("Recursive merge sort took "
+									 + (System.nanoTime() - start) / 1000000 + " ms");
+				return;
+			}
+			collection.reset(null);			// Select nothing
+			long millis = (System.nanoTime() - start) / 1000000;
+
+			if (trace != null && trace.getLength() > 0)	// Not if it sorted without it
+				lastTrace = trace;
+			theApplet.showStatus(sorter.getName() + " sort took " + millis + " ms and "
+								 + sorter.getComparisons() + " comparisons");
 		}
 	}
-		
-	
+
+	/**
+	 * Sorts a collection that cannot reorder itself with the recursive
+	 * merge sort, which only goes through it with its cursor, and puts
+	 * the sorted Items in a new ArrayDataCollection that takes its place.
+	 */
+	private void sortByCursor() {
+		Item [] items = mergeSort(collection).toArray();
+		for (int i = 0; i < items.length; i++)	// The halves selected some
+			items[i].highlight(false);
+		collection= new ArrayDataCollection(x, y);	// Clear the original DataCollection
+		collection.addAll(items);			// Refill it with the sorted data
+		collection.reset(null);				// Select nothing
+		collection.setListener(collectionListener);
+		collection.setScanner(scanner);
+		markDirty(collectionBounds());
+	}
+
 	/**
 	 * Recursively sorts the given DataCollection using
-	 * merge sort.
+	 * merge sort. Only used for DataCollections that cannot
+	 * reorder themselves.
 	 * @param DataCollection to be sorted
 	 * @return Same DataCollection but sorted from smallest to largest
 	 */
@@ -168,6 +385,295 @@ public class SortableDataOrganizer extends DataOrganizer{
 		return result;
 	}
 
+	/**
+	 * Determines whether the given collection sorts itself with the
+	 * given strategy without making any Items, so that it is quicker to
+	 * sort it on the spot than to copy it into Items for the background:
+	 * a compressed collection only sorts its codes, and a primitive one
+	 * sorts its arrays of ints.
+	 */
+	private static boolean sortsWithoutItems(DataCollection someCollection,
+											 SortStrategy sorter) {
+		return someCollection instanceof CompressedDataCollection
+			|| (someCollection instanceof PrimitiveDataCollection
+				&& PrimitiveDataCollection.sortsArrays(sorter));
+	}
+
+	/**
+	 * Starts the background sort, showing that it runs.
+	 */
+	private void startSort() {
+		relabel(sortButton, "Cancel");
+		theApplet.showStatus("Sorting...");
+		sortWorker.start();
+	}
+
+	/**
+	 * Hands what was sorted in the background back to the collection,
+	 * unless the sort was cancelled or the collection replaced since.
+	 * Runs on the event thread, so painting never sees a half sorted
+	 * collection.
+	 */
+	private void sortFinished(SortWorker worker) {
+		if (worker != sortWorker) {
+			worker.discard();				// Cancelled, so nothing of it is used
+			return;
+		}
+		sortWorker = null;
+		relabel(sortButton, "Sort");
+
+		if (worker.getFailure() != null)
+			theApplet.showStatus("Sort failed: " + worker.getFailure().getMessage());
+		else if (! worker.isDone() || worker.getCollection() != collection)
+			worker.discard();
+		else if (worker.getSortedFile() != null) {	// Sorted on disk
+			try {
+				((FileDataCollection) collection).useSorted(worker.getSortedFile(),
+															 worker.getExternalSorter());
+				collection.reset(null);		// Select nothing
+				ExternalSorter external = worker.getExternalSorter();
+				theApplet.showStatus("External sort of " + (external.getBytes() >> 20)
+									 + " MB in " + external.getRuns() + " runs took "
+									 + external.getMillis() + " ms ("
+									 + Math.round(external.getMegabytesPerSecond())
+									 + " MB/s) in the background");
+			} catch (java.io.IOException e) {
+				worker.discard();
+				theApplet.showStatus("Sort failed: " + e.getMessage());
+			}
+		}
+		else if (worker.getItems().length != collection.size()) {
+			worker.discard();				// Items came or went meanwhile
+			theApplet.showStatus("Sort dropped: the collection changed");
+		}
+		else {
+			saveVersion();
+			collection.setOrder(worker.getItems());
+			collection.reset(null);			// Select nothing
+			if (worker.getTrace() != null)
+				lastTrace = worker.getTrace();
+			theApplet.showStatus(worker.getStrategy().getName() + " sort took "
+								 + worker.getMillis() + " ms and "
+								 + worker.getComparisons() + " comparisons in the background");
+		}
+		repaintDirty();
+	}
+
+	/**
+	 * Stops the background sort, if there is one.
+	 */
+	private void cancelSort() {
+		if (sortWorker != null) {
+			sortWorker.cancel();
+			sortWorker = null;
+			relabel(sortButton, "Sort");
+		}
+	}
+
+	/**
+	 * Cancels any background sort or replay before making a new collection.
+	 */
+	public void randomAction() {
+		cancelSort();
+		stopReplay();
+		super.randomAction();
+	}
+
+	/**
+	 * Cancels any background sort or replay before removing the selected Item.
+	 */
+	public void removeAction() {
+		cancelSort();
+		stopReplay();
+		if (collection != null && collection.hasNext())
+			saveVersion();
+		super.removeAction();
+	}
+
+	/**
+	 * Cancels any background sort or replay before inserting an Item.
+	 */
+	public void insertAction() {
+		cancelSort();
+		stopReplay();
+		super.insertAction();
+	}
+
+	/**
+	 * Saves the current version of the collection before it changes,
+	 * if it is one that keeps versions.
+	 */
+	private void saveVersion() {
+		if (collection instanceof PersistentDataCollection)
+			((PersistentDataCollection) collection).checkpoint();
+	}
+
+	/**
+	 * Brings back the version of the collection before the last Remove
+	 * or Sort, if the collection keeps versions.
+	 */
+	public void undoAction() {
+		cancelSort();
+		stopReplay();
+		if (! (collection instanceof PersistentDataCollection))
+			theApplet.showStatus("Only a persistent collection can undo");
+		else if (((PersistentDataCollection) collection).undo())
+			theApplet.showStatus(((PersistentDataCollection) collection).getUndoCount()
+								 + " more to undo");
+		else
+			theApplet.showStatus("Nothing to undo");
+	}
+
+	/**
+	 * Brings back the version undone last, if any.
+	 */
+	public void redoAction() {
+		cancelSort();
+		stopReplay();
+		if (! (collection instanceof PersistentDataCollection))
+			theApplet.showStatus("Only a persistent collection can redo");
+		else if (((PersistentDataCollection) collection).redo())
+			theApplet.showStatus(((PersistentDataCollection) collection).getRedoCount()
+								 + " more to redo");
+		else
+			theApplet.showStatus("Nothing to redo");
+	}
+
+	/**
+	 * Stops showing the replay, if one is showing, so the collection
+	 * shows again.
+	 */
+	private void stopReplay() {
+		if (replay != null) {
+			replay = null;
+			markDirty(collectionBounds());
+		}
+	}
+
+	/**
+	 * Replays the last traced sort, step by step, in place of the
+	 * collection; stops the replay if one is already showing.
+	 */
+	public void replayAction() {
+		if (replay != null) {
+			stopReplay();
+			theApplet.showStatus("Replay stopped");
+		}
+		else if (lastTrace == null)
+			theApplet.showStatus("Sort first, then replay");
+		else {
+			final SortTracePlayer player = new SortTracePlayer(lastTrace);
+			final int stepsPerFrame = Math.max(1,
+					player.getSteps() / (REPLAY_MILLIS / FRAME_MILLIS));
+			replay = player;
+			markDirty(collectionBounds());
+			theApplet.showStatus("Replaying " + player.getSteps() + " steps");
+
+			Thread thread = new Thread(new Runnable() {
+				public void run() {
+					try {
+						while (replay == player && ! player.isFinished()) {
+							synchronized (player) {
+								player.advance(stepsPerFrame);
+							}
+							markDirty(collectionBounds());
+							repaintDirty();
+							Thread.sleep(FRAME_MILLIS);
+						}
+					} catch (InterruptedException e) {}
+					if (replay == player)	// Show the collection again
+						replay = null;
+					markDirty(collectionBounds());
+					repaintDirty();
+				}
+			}, "Replay");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Paints the values of the replay as they are after its current step,
+	 * highlighting the Items compared last.
+	 */
+	private void paintReplay(Graphics pane, SortTracePlayer player) {
+		Item bar = new Item();
+		synchronized (player) {
+			int first = 0, last = player.getLength();
+			Rectangle clip = pane.getClipBounds();
+			if (clip != null) {				// Only paint what shows
+				first = Math.max(0, (clip.x - x) / Item.OVERALL_WIDTH - 1);
+				last = (int) Math.min(last, (long) (clip.x + clip.width - x)
+										   / Item.OVERALL_WIDTH + 2);
+			}
+			for (int i = first; i < last; i++) {
+				bar.setup(0, 0, player.getValue(i), Color.orange);
+				bar.highlight(player.isCompared(i));
+				bar.paint(pane, x + i * Item.OVERALL_WIDTH, y);
+			}
+		}
+	}
+
+	/**
+	 * Finds and selects the median Item (the lower one, when the
+	 * number of Items is even) without sorting the collection.
+	 * Only the values are copied, so it works on a collection on disk.
+	 */
+	public void medianAction() {
+		if (collection != null) {
+			int size = collection.size();
+			if (size > 0) {
+				Item median = collection.get(Selector.indexOf(collection, (size - 1) / 2));
+				collection.reset(median);
+				theApplet.showStatus("Median: " + median.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Finds and selects the k-th smallest Item without sorting the
+	 * collection; each click moves on to the next k.
+	 */
+	public void kthAction() {
+		if (collection != null) {
+			int size = collection.size();
+			if (size > 0) {
+				if (k > size)				// Start over after the largest
+					k = 1;
+				Item kth = collection.get(Selector.indexOf(collection, k - 1));
+				collection.reset(kth);
+				theApplet.showStatus("Smallest number " + k + ": " + kth.getValue());
+				k++;
+			}
+		}
+	}
+
+	/**
+	 * Finds and highlights the largest Items without sorting the
+	 * collection. Among equal Items, the left-most ones are chosen.
+	 */
+	public void topKAction() {
+		if (collection != null) {
+			Item [] largest = Selector.largest(collection, topK);
+			collection.highlight(largest);
+			String values = "";
+			for (int i = 0; i < largest.length; i++)
+				values += (i == 0 ? " " : ", ") + largest[i].getValue();
+			theApplet.showStatus("Largest " + largest.length + ":" + values);
+		}
+	}
+
+	/**
+	 * Switches Sort to the next registered strategy.
+	 */
+	public void strategyAction() {
+		strategy = (strategy + 1) % SortStrategies.size();
+		SortStrategy sorter = SortStrategies.get(strategy);
+		relabel(strategyButton, sorter.getName());
+		theApplet.showStatus(sorter.getName() + " sort"
+							 + (sorter.isStable() ? " (stable)" : " (not stable)"));
+	}
+
 	/**
 	 * Paints the buttons and the collection
 	 * @param pane provided by the system when the Frame is set to be
@@ -175,8 +681,11 @@ public class SortableDataOrganizer extends DataOrganizer{
 	 */
 	public void paint(Graphics pane)
 	{
-		if (collection != null)				//	When instantiated,
-			collection.paint(pane);			//		we display the element
+		SortTracePlayer player = replay;
+		if (player != null)					//	When replaying, we show the replay
+			paintReplay(pane, player);
+		else if (collection != null)		//	When instantiated,
+			paintCollection(pane);			//		we display the element
 
 		if (randomButton != null)
 			randomButton.paint(pane);		//		and all of the buttons
@@ -188,9 +697,34 @@ public class SortableDataOrganizer extends DataOrganizer{
 
 		if (removeButton != null)
 			removeButton.paint(pane);
+		if (insertButton != null)
+			insertButton.paint(pane);
 		
 		if (sortButton != null)
 			sortButton.paint(pane);
+		if (strategyButton != null)
+			strategyButton.paint(pane);
+		if (replayButton != null)
+			replayButton.paint(pane);
+
+		if (medianButton != null)
+			medianButton.paint(pane);
+		if (kthButton != null)
+			kthButton.paint(pane);
+		if (topKButton != null)
+			topKButton.paint(pane);
+
+		if (undoButton != null)
+			undoButton.paint(pane);
+		if (redoButton != null)
+			redoButton.paint(pane);
+
+		if (meanButton != null)
+			meanButton.paint(pane);
+		if (varianceButton != null)
+			varianceButton.paint(pane);
+		if (percentileButton != null)
+			percentileButton.paint(pane);
 	}
 
 	/**
@@ -201,31 +735,73 @@ public class SortableDataOrganizer extends DataOrganizer{
 	{
 
 		theApplet.showStatus(" ");			//	To reset the status bar
+		if (spriteCounts)					//		or show how the pictures do
+			theApplet.showStatus(sprites.toString());
 
-		if (randomButton.isInside(lastX, lastY)) {
-			randomAction();
-		}
+		try {
+			if (randomButton.isInside(lastX, lastY)) {
+				randomAction();
+			}
 
-		else if (maximumButton.isInside(lastX, lastY)) {
-			maximumAction();
-		}
-		else if (minimumButton.isInside(lastX, lastY)) {
-			minimumAction();
-		}
+			else if (maximumButton.isInside(lastX, lastY)) {
+				maximumAction();
+			}
+			else if (minimumButton.isInside(lastX, lastY)) {
+				minimumAction();
+			}
 
-		else if (removeButton.isInside(lastX, lastY)) {
-			removeAction();
-		}
+			else if (removeButton.isInside(lastX, lastY)) {
+				removeAction();
+			}
+			else if (insertButton.isInside(lastX, lastY)) {
+				insertAction();
+			}
 		
-		else if (sortButton.isInside(lastX, lastY)) {
-			sortAction();
-		}
+			else if (sortButton.isInside(lastX, lastY)) {
+				sortAction();
+			}
+			else if (strategyButton.isInside(lastX, lastY)) {
+				strategyAction();
+			}
+			else if (replayButton.isInside(lastX, lastY)) {
+				replayAction();
+			}
 
-		else  {
-			theApplet.showStatus("What?");
+			else if (medianButton.isInside(lastX, lastY)) {
+				medianAction();
+			}
+			else if (kthButton.isInside(lastX, lastY)) {
+				kthAction();
+			}
+			else if (topKButton.isInside(lastX, lastY)) {
+				topKAction();
+			}
+
+			else if (undoButton.isInside(lastX, lastY)) {
+				undoAction();
+			}
+			else if (redoButton.isInside(lastX, lastY)) {
+				redoAction();
+			}
+
+			else if (meanButton.isInside(lastX, lastY)) {
+				meanAction();
+			}
+			else if (varianceButton.isInside(lastX, lastY)) {
+				varianceAction();
+			}
+			else if (percentileButton.isInside(lastX, lastY)) {
+				percentileAction();
+			}
+
+			else  {
+				theApplet.showStatus("What?");
+			}
+		} catch (IllegalStateException e) {	//	A collection kept on disk failed
+			theApplet.showStatus("Failed: " + e.getMessage());
 		}
 
-		theApplet.repaint();
+		repaintDirty();						//	Only what changed
 		//	Handle the mouse click
 	}
 
@@ -259,18 +835,43 @@ public class SortableDataOrganizer extends DataOrganizer{
 	private void flipWhenInside()
 	{
 		if (randomButton.isInside(lastX, lastY))
-			randomButton.flip();
+			flip(randomButton);
 
 		else if (maximumButton.isInside(lastX, lastY))
-			maximumButton.flip();
+			flip(maximumButton);
 		else if (minimumButton.isInside(lastX, lastY))
-			minimumButton.flip();
+			flip(minimumButton);
 
 		else if (removeButton.isInside(lastX, lastY))
-			removeButton.flip();
+			flip(removeButton);
+		else if (insertButton.isInside(lastX, lastY))
+			flip(insertButton);
 		else if (sortButton.isInside(lastX, lastY))
-			sortButton.flip();
-		theApplet.repaint();
+			flip(sortButton);
+		else if (strategyButton.isInside(lastX, lastY))
+			flip(strategyButton);
+		else if (replayButton.isInside(lastX, lastY))
+			flip(replayButton);
+
+		else if (medianButton.isInside(lastX, lastY))
+			flip(medianButton);
+		else if (kthButton.isInside(lastX, lastY))
+			flip(kthButton);
+		else if (topKButton.isInside(lastX, lastY))
+			flip(topKButton);
+
+		else if (undoButton.isInside(lastX, lastY))
+			flip(undoButton);
+		else if (redoButton.isInside(lastX, lastY))
+			flip(redoButton);
+
+		else if (meanButton.isInside(lastX, lastY))
+			flip(meanButton);
+		else if (varianceButton.isInside(lastX, lastY))
+			flip(varianceButton);
+		else if (percentileButton.isInside(lastX, lastY))
+			flip(percentileButton);
+		repaintDirty();
 	}
 
 }	
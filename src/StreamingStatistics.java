@@ -0,0 +1,464 @@
+/**
+ * Works out statistics of int values seen once each, in one pass and
+ * without keeping or sorting the values: how many there are, their
+ * mean and variance, the smallest and the largest, percentiles and the
+ * most frequent value.
+ * The mean and the variance are kept with Welford's method, which does
+ * not lose precision the way a sum of squares does.
+ * While the values span at most CountingSorter.MAXIMUM_KEYS values they
+ * are also counted per value, so percentiles and the mode are exact.
+ * Past that span the counts are dropped and percentiles come from a
+ * t-digest instead: a few hundred centroids (a mean and a weight each)
+ * that are small near the ends and big in the middle, so the extreme
+ * percentiles stay close. The mode is unknown then.
+ * Statistics of separate parts can be merged, in any order, so chunks
+ * of a collection can be looked at apart (by other threads, say) and
+ * put together after.
+ */
+public class StreamingStatistics
+{
+	/**
+	 * How finely the t-digest keeps the values: it holds about this many
+	 * centroids, or a few times as many
+	 */
+	private static final int COMPRESSION = 100;
+
+	/**
+	 * The number of values, their mean, the sum of the squared
+	 * differences from the mean, the smallest and the largest
+	 */
+	private long size;
+	private double mean, squares;
+	private int minimum, maximum;
+
+	/**
+	 * How many there are of each value, counts[v - low] for value v,
+	 * or null if the values are too spread out to count
+	 */
+	private int [] counts = new int[0];
+	private int low;
+
+	/**
+	 * The centroids of the t-digest, in order of their means, once the
+	 * values are too spread out to count
+	 */
+	private double [] means;
+	private long [] weights;
+	private int centroids;
+
+	/**
+	 * Values (with their weights) added to the t-digest since it was
+	 * last compressed
+	 */
+	private int [] buffer;
+	private long [] bufferWeights;
+	private int buffered;
+
+	/**
+	 * Starts with no values.
+	 */
+	public StreamingStatistics() {}
+
+	/**
+	 * Returns the statistics of all the values of the given collection.
+	 */
+	public static StreamingStatistics of(DataCollection collection)
+	{
+		return of(collection, 0, collection.size());
+	}
+
+	/**
+	 * Returns the statistics of the values of the given collection from
+	 * position from (included) to position to (excluded).
+	 */
+	public static StreamingStatistics of(DataCollection collection, int from, int to)
+	{
+		StreamingStatistics result = new StreamingStatistics();
+		for (int i = from; i < to; i++)
+			result.add(collection.getValue(i));
+		return result;
+	}
+
+	/**
+	 * Takes one more value into account.
+	 */
+	public void add(int value)
+	{
+		if (size == 0)
+			minimum = maximum = value;
+		else if (value < minimum)
+			minimum = value;
+		else if (value > maximum)
+			maximum = value;
+		size++;
+		double delta = value - mean;
+		mean += delta / size;
+		squares += delta * (value - mean);
+
+		if (counts != null && cover(value, value))
+			counts[value - low]++;
+		else
+			addToDigest(value, 1);
+	}
+
+	/**
+	 * Takes all the values of the given statistics into account as well,
+	 * as if they had been added here. The given statistics stay as they
+	 * are.
+	 */
+	public void merge(StreamingStatistics other)
+	{
+		if (other.size == 0)
+			return;
+		if (size == 0) {
+			minimum = other.minimum;
+			maximum = other.maximum;
+		}
+		else {
+			minimum = Math.min(minimum, other.minimum);
+			maximum = Math.max(maximum, other.maximum);
+		}
+		long total = size + other.size;
+		double delta = other.mean - mean;
+		squares += other.squares + delta * delta * ((double) size * other.size / total);
+		mean += delta * other.size / total;
+		size = total;
+
+		if (other.counts != null && counts != null
+			&& cover(other.minimum, other.maximum)) {
+			for (int v = other.minimum; v <= other.maximum; v++)
+				counts[v - low] += other.counts[v - other.low];
+		}
+		else {
+			if (counts != null)
+				dropCounts();
+			if (other.counts != null) {
+				for (int i = 0; i < other.counts.length; i++)
+					if (other.counts[i] > 0)
+						addToDigest(other.low + i, other.counts[i]);
+			}
+			else
+				mergeDigest(other);
+		}
+	}
+
+	/**
+	 * Makes the counts span the given values, which must lie between the
+	 * smallest and the largest value, unless that would take more than
+	 * CountingSorter.MAXIMUM_KEYS counts, when they are handed over to
+	 * the t-digest.
+	 * @return whether the values can be counted
+	 */
+	private boolean cover(int from, int to)
+	{
+		if (counts.length == 0) {
+			counts = new int[Math.max(16, to - from + 1)];
+			low = from;
+		}
+		if (from >= low && (long) to - low < counts.length)
+			return true;
+
+		if ((long) maximum - minimum >= CountingSorter.MAXIMUM_KEYS) {
+			dropCounts();						// Too spread out to count
+			return false;
+		}
+		int length = (int) Math.min(CountingSorter.MAXIMUM_KEYS,	// Room to grow either way
+									Math.max(2 * counts.length, (long) maximum - minimum + 1));
+		long newLow = minimum;
+		if (from < low)
+			newLow = Math.max((long) maximum - length + 1, (long) Integer.MIN_VALUE);
+		int [] temp = new int[length];
+		long start = Math.max(low, newLow),		// Only the old counts of values seen
+			 end = Math.min((long) low + counts.length, newLow + length);
+		if (start < end)
+			System.arraycopy(counts, (int) (start - low), temp, (int) (start - newLow),
+							 (int) (end - start));
+		counts = temp;
+		low = (int) newLow;
+		return true;
+	}
+
+	/**
+	 * Hands the values counted so far over to the t-digest, and stops
+	 * counting.
+	 */
+	private void dropCounts()
+	{
+		int [] counted = counts;
+		counts = null;
+		for (int i = 0; i < counted.length; i++)
+			if (counted[i] > 0)
+				addToDigest(low + i, counted[i]);
+	}
+
+	/**
+	 * Makes an empty t-digest, unless there is one.
+	 */
+	private void startDigest()
+	{
+		if (buffer == null) {
+			buffer = new int[5 * COMPRESSION];
+			bufferWeights = new long[buffer.length];
+			means = new double[0];
+			weights = new long[0];
+		}
+	}
+
+	/**
+	 * Adds the given value, with the given weight, to the t-digest,
+	 * compressing it when enough values have come.
+	 */
+	private void addToDigest(int value, long weight)
+	{
+		startDigest();
+		if (buffered == buffer.length)
+			compress();
+		buffer[buffered] = value;
+		bufferWeights[buffered++] = weight;
+	}
+
+	/**
+	 * Merges the values added since the last time into the centroids,
+	 * then merges neighbouring centroids for as long as none grows past
+	 * 4 n q (1 - q) / COMPRESSION values, q being the fraction of the
+	 * values that come before it.
+	 */
+	private void compress()
+	{
+		if (buffer == null)
+			return;
+		long [] order = new long[buffered];		// Value and position, so sorting keeps both
+		for (int i = 0; i < buffered; i++)
+			order[i] = ((long) buffer[i] << 32) | i;
+		java.util.Arrays.sort(order);
+
+		int n = centroids + buffered;
+		double [] allMeans = new double[n];
+		long [] allWeights = new long[n];
+		int c = 0, b = 0;
+		for (int i = 0; i < n; i++)			// Merge the two, by mean
+			if (b == buffered
+				|| (c < centroids && means[c] <= (int) (order[b] >> 32))) {
+				allMeans[i] = means[c];
+				allWeights[i] = weights[c++];
+			}
+			else {
+				allMeans[i] = (int) (order[b] >> 32);
+				allWeights[i] = bufferWeights[(int) order[b++]];
+			}
+		buffered = 0;
+		combine(allMeans, allWeights, n);
+	}
+
+	/**
+	 * Merges the centroids of the given t-digest into this one.
+	 */
+	private void mergeDigest(StreamingStatistics other)
+	{
+		startDigest();
+		compress();
+		other.compress();
+		int n = centroids + other.centroids;
+		double [] allMeans = new double[n];
+		long [] allWeights = new long[n];
+		int c = 0, o = 0;
+		for (int i = 0; i < n; i++)			// Merge the two, by mean
+			if (o == other.centroids || (c < centroids && means[c] <= other.means[o])) {
+				allMeans[i] = means[c];
+				allWeights[i] = weights[c++];
+			}
+			else {
+				allMeans[i] = other.means[o];
+				allWeights[i] = other.weights[o++];
+			}
+		combine(allMeans, allWeights, n);
+	}
+
+	/**
+	 * Makes the centroids from the first n of the given ones, which are
+	 * in order of their means, merging neighbours as compress says.
+	 */
+	private void combine(double [] allMeans, long [] allWeights, int n)
+	{
+		long total = 0;
+		for (int i = 0; i < n; i++)
+			total += allWeights[i];
+		means = new double[Math.max(1, Math.min(n, 2 * COMPRESSION))];
+		weights = new long[means.length];
+		centroids = 0;
+		if (n == 0)
+			return;
+		double someMean = allMeans[0];
+		long weight = allWeights[0], before = 0;
+		for (int i = 1; i < n; i++) {
+			if (allWeights[i] == 0)
+				continue;
+			double q = (before + (weight + allWeights[i]) / 2.0) / total;
+			if (weight + allWeights[i] <= 4 * total * q * (1 - q) / COMPRESSION) {
+				weight += allWeights[i];
+				someMean += (allMeans[i] - someMean) * allWeights[i] / weight;
+			}
+			else {
+				keep(someMean, weight);
+				before += weight;
+				someMean = allMeans[i];
+				weight = allWeights[i];
+			}
+		}
+		keep(someMean, weight);
+	}
+
+	/**
+	 * Appends a centroid to those being made by compress.
+	 */
+	private void keep(double someMean, long weight)
+	{
+		if (weight == 0)
+			return;
+		if (centroids == means.length) {
+			double [] moreMeans = new double[2 * centroids];
+			System.arraycopy(means, 0, moreMeans, 0, centroids);
+			means = moreMeans;
+			long [] moreWeights = new long[2 * centroids];
+			System.arraycopy(weights, 0, moreWeights, 0, centroids);
+			weights = moreWeights;
+		}
+		means[centroids] = someMean;
+		weights[centroids++] = weight;
+	}
+
+	/**
+	 * Returns the number of values.
+	 */
+	public long size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the mean of the values, if there are any.
+	 */
+	public double getMean()
+	{
+		return mean;
+	}
+
+	/**
+	 * Returns the variance of the values, taken as the whole population:
+	 * the mean of the squared differences from their mean.
+	 */
+	public double getVariance()
+	{
+		return size == 0 ? 0 : squares / size;
+	}
+
+	/**
+	 * Returns the standard deviation of the values, taken as the whole
+	 * population.
+	 */
+	public double getStandardDeviation()
+	{
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Returns the smallest value, if there are any.
+	 */
+	public int getMinimum()
+	{
+		return minimum;
+	}
+
+	/**
+	 * Returns the largest value, if there are any.
+	 */
+	public int getMaximum()
+	{
+		return maximum;
+	}
+
+	/**
+	 * Determines whether percentiles and the mode are exact, which they
+	 * are as long as the values span at most CountingSorter.MAXIMUM_KEYS
+	 * values.
+	 */
+	public boolean isExact()
+	{
+		return counts != null;
+	}
+
+	/**
+	 * Returns the given percentile of the values, which must be some.
+	 * When exact, that is the smallest value that at least the given
+	 * percent of the values are no larger than (so the 50th percentile
+	 * is the lower median); otherwise it is estimated by the t-digest.
+	 * @param percent from 0 to 100
+	 */
+	public double getPercentile(double percent)
+	{
+		if (size == 0)
+			throw new IllegalStateException("No values");
+		if (percent < 0 || percent > 100)
+			throw new IllegalArgumentException("No percentile " + percent);
+		if (counts != null) {
+			long rank = Math.max(1, (long) Math.ceil(percent / 100 * size));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank)
+					return low + i;
+			}
+			return maximum;
+		}
+
+		compress();
+		double target = percent / 100 * size, before = 0, center = 0;
+		for (int i = 0; i < centroids; i++) {	// Between the centers of centroids
+			double previous = center;
+			center = before + weights[i] / 2.0;
+			if (target < center) {
+				if (i == 0)
+					return minimum + (means[0] - minimum) * target / center;
+				return means[i - 1]
+					   + (means[i] - means[i - 1]) * (target - previous) / (center - previous);
+			}
+			before += weights[i];
+		}
+		double last = means[centroids - 1];
+		return last + (maximum - last) * (target - center) / Math.max(1, size - center);
+	}
+
+	/**
+	 * Returns the most frequent value (the smallest of them, if there is
+	 * a tie), if there are values and the statistics are exact.
+	 */
+	public int getMode()
+	{
+		return low + indexOfMode();
+	}
+
+	/**
+	 * Returns how many times the most frequent value comes, or -1 if the
+	 * values are too spread out to have been counted.
+	 */
+	public int getModeCount()
+	{
+		if (counts == null)
+			return -1;
+		return counts.length == 0 ? 0 : counts[indexOfMode()];
+	}
+
+	/**
+	 * Returns the position of the first largest count.
+	 */
+	private int indexOfMode()
+	{
+		int result = 0;
+		if (counts != null)
+			for (int i = 1; i < counts.length; i++)
+				if (counts[i] > counts[result])
+					result = i;
+		return result;
+	}
+
+}	// end StreamingStatistics
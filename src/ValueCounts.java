@@ -0,0 +1,203 @@
+/**
+ * Keeps running aggregates of a multiset of int values as values are
+ * added and removed: how many there are, their sum, the smallest and
+ * the largest, and how many there are of each value.
+ * The counts per value are kept in an array spanning the values seen,
+ * as long as they span at most CountingSorter.MAXIMUM_KEYS values, so
+ * when the smallest or the largest value goes the next one is found
+ * by walking the counts instead of looking at the values again.
+ * Past that span the counts are dropped, and an extreme that goes
+ * becomes unknown until the owner finds it again and says so.
+ */
+public class ValueCounts
+{
+	/**
+	 * How many there are of each value, counts[v - low] for value v,
+	 * or null if the values are too spread out to count
+	 */
+	private int [] counts;
+	private int low;
+
+	/**
+	 * The number of values and their sum
+	 */
+	private int size;
+	private long sum;
+
+	/**
+	 * The smallest and the largest value, and whether they are known
+	 */
+	private int minimum, maximum;
+	private boolean minimumKnown, maximumKnown;
+
+	/**
+	 * Starts with no values.
+	 */
+	public ValueCounts()
+	{
+		clear();
+	}
+
+	/**
+	 * Forgets all the values.
+	 */
+	public void clear()
+	{
+		counts = new int[0];
+		low = 0;
+		size = 0;
+		sum = 0;
+		minimumKnown = maximumKnown = true;
+	}
+
+	/**
+	 * Counts one more of the given value.
+	 */
+	public void add(int value)
+	{
+		if (size == 0) {
+			minimum = maximum = value;
+			minimumKnown = maximumKnown = true;
+		}
+		else {
+			if (minimumKnown && value < minimum)
+				minimum = value;
+			if (maximumKnown && value > maximum)
+				maximum = value;
+		}
+		size++;
+		sum += value;
+		if (counts != null && cover(value))
+			counts[value - low]++;
+	}
+
+	/**
+	 * Makes the counts span the given value, unless that would take
+	 * more than CountingSorter.MAXIMUM_KEYS counts, when they are dropped.
+	 * @return whether the value can be counted
+	 */
+	private boolean cover(int value)
+	{
+		if (counts.length == 0) {
+			counts = new int[16];
+			low = value;
+		}
+		if (value >= low && (long) value - low < counts.length)
+			return true;
+
+		long newLow = Math.min(low, value),
+			 newHigh = Math.max((long) low + counts.length - 1, value);
+		if (newHigh - newLow >= CountingSorter.MAXIMUM_KEYS) {
+			counts = null;						// Too spread out to count
+			return false;
+		}
+		int length = (int) Math.min(CountingSorter.MAXIMUM_KEYS,	// Room to grow either way
+									Math.max(2 * counts.length, newHigh - newLow + 1));
+		if (value < low)
+			newLow = Math.max(newHigh - length + 1, (long) Integer.MIN_VALUE);
+		int [] temp = new int[length];
+		System.arraycopy(counts, 0, temp, (int) (low - newLow), counts.length);
+		counts = temp;
+		low = (int) newLow;
+		return true;
+	}
+
+	/**
+	 * Counts one less of the given value, which must have been added.
+	 */
+	public void remove(int value)
+	{
+		size--;
+		sum -= value;
+		if (size == 0) {
+			clear();
+			return;
+		}
+		if (counts != null) {
+			if (--counts[value - low] == 0) {	// The last of its value
+				if (minimumKnown && value == minimum)
+					while (counts[minimum - low] == 0)
+						minimum++;
+				if (maximumKnown && value == maximum)
+					while (counts[maximum - low] == 0)
+						maximum--;
+			}
+		}
+		else {
+			if (value == minimum)				// Maybe the last of its value
+				minimumKnown = false;
+			if (value == maximum)
+				maximumKnown = false;
+		}
+	}
+
+	/**
+	 * Tells the smallest and the largest value, found by looking at
+	 * all of them, after they became unknown.
+	 */
+	public void setExtremes(int someMinimum, int someMaximum)
+	{
+		minimum = someMinimum;
+		maximum = someMaximum;
+		minimumKnown = maximumKnown = true;
+	}
+
+	/**
+	 * Returns the number of values.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the sum of the values.
+	 */
+	public long getSum()
+	{
+		return sum;
+	}
+
+	/**
+	 * Returns how many there are of the given value, or -1 if the
+	 * values are too spread out to have been counted.
+	 */
+	public int getCount(int value)
+	{
+		if (counts == null)
+			return -1;
+		if (value < low || (long) value - low >= counts.length)
+			return 0;
+		return counts[value - low];
+	}
+
+	/**
+	 * Determines whether the smallest and the largest value are known;
+	 * they always are while there are no values.
+	 */
+	public boolean isMinimumKnown()
+	{
+		return minimumKnown;
+	}
+	public boolean isMaximumKnown()
+	{
+		return maximumKnown;
+	}
+
+	/**
+	 * Returns the smallest value, if there are values and it is known.
+	 */
+	public int getMinimum()
+	{
+		return minimum;
+	}
+
+	/**
+	 * Returns the largest value, if there are values and it is known.
+	 */
+	public int getMaximum()
+	{
+		return maximum;
+	}
+
+}	// end ValueCounts
@@ -0,0 +1,65 @@
+import java.util.concurrent.*;
+
+/**
+ * Holds the pool of threads shared by everything that splits its
+ * work across the available processors.
+ * The threads are daemons, so they never keep the applet alive.
+ */
+public class Workers
+{
+	/**
+	 * The shared pool, created the first time it is needed
+	 */
+	private static ExecutorService pool;
+
+	/**
+	 * The number of threads in the pool
+	 */
+	public static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Nothing to instantiate; everything is shared
+	 */
+	private Workers() {}
+
+	/**
+	 * Returns the shared pool of worker threads.
+	 */
+	public static synchronized ExecutorService pool()
+	{
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(PARALLELISM, new ThreadFactory() {
+				private int count = 0;
+
+				public Thread newThread(Runnable task) {
+					Thread result = new Thread(task, "Worker-" + (++count));
+					result.setDaemon(true);
+					return result;
+				}
+			});
+		}
+		return pool;
+	}
+
+	/**
+	 * Runs all of the given tasks on the shared pool and waits
+	 * until every one of them has finished.
+	 * Any exception thrown by a task is thrown again here.
+	 */
+	public static void runAll(java.util.List<Callable<Object>> tasks)
+	{
+		try {
+			java.util.List<Future<Object>> results = pool().invokeAll(tasks);
+			for (int i = 0; i < results.size(); i++)
+				results.get(i).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for workers");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException("A worker failed: " + e.getCause());
+		}
+	}
+
+}	// end Workers